@@ -0,0 +1,86 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * The result of reading a batch of Excel files. It keeps the rows read
+ * out of each file and the error of each file failed to read.
+ *
+ * @param <T> the row type
+ * @see ExcelReader.Builder#readAll(Collection, Class, int)
+ */
+public class BatchResult<T> {
+
+    private final Map<File, List<T>> results = new LinkedHashMap<>();
+    private final Map<File, Throwable> failures = new LinkedHashMap<>();
+
+    BatchResult() {
+    }
+
+    /**
+     * @return the rows read keyed by file, in the order of files given
+     */
+    public Map<File, List<T>> results() {
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * @return the errors keyed by file, in the order of files given
+     */
+    public Map<File, Throwable> failures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return `true` if any file failed to read
+     */
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * @return rows read out of all files succeeded, in the order of files given
+     */
+    public List<T> rows() {
+        int size = 0;
+        for (List<T> rows : results.values()) {
+            size += rows.size();
+        }
+        List<T> retVal = new ArrayList<>(size);
+        for (List<T> rows : results.values()) {
+            retVal.addAll(rows);
+        }
+        return retVal;
+    }
+
+    void succeeded(File file, List<T> rows) {
+        results.put(file, rows);
+    }
+
+    void failed(File file, Throwable error) {
+        failures.put(file, error);
+    }
+}
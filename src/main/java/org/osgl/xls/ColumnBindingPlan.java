@@ -0,0 +1,143 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.osgl.util.PropertySetter;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The plan to bind cells of a row to an entity, built from the column
+ * index of a sheet.
+ *
+ * Columns and their setters are kept in parallel arrays ordered by
+ * column index, so that a row is scanned once from left to right
+ * without boxing column indexes or iterating map entries.
+ *
+ * Each column also has a reader kind chosen by the type of the target
+ * property. Numeric cells of `int`, `long` and `double` columns are read
+ * with {@link SheetScanner#readDouble(int)} and set without boxing.
+ */
+final class ColumnBindingPlan {
+
+    /**
+     * Read the cell with {@link SheetScanner#cellValue(int)}.
+     */
+    static final byte READ_OBJECT = 0;
+
+    /**
+     * Read numeric cell into an `int` property.
+     */
+    static final byte READ_INT = 1;
+
+    /**
+     * Read numeric cell into a `long` property.
+     */
+    static final byte READ_LONG = 2;
+
+    /**
+     * Read numeric cell into a `double` property.
+     */
+    static final byte READ_DOUBLE = 3;
+
+    private final int[] columns;
+    private final PropertySetter[] setters;
+    private final byte[] readers;
+
+    private ColumnBindingPlan(int[] columns, PropertySetter[] setters, byte[] readers) {
+        this.columns = columns;
+        this.setters = setters;
+        this.readers = readers;
+    }
+
+    /**
+     * Returns the number of columns to be bound.
+     *
+     * @return the number of columns
+     */
+    int size() {
+        return columns.length;
+    }
+
+    boolean isEmpty() {
+        return 0 == columns.length;
+    }
+
+    /**
+     * Returns the column index of the `i`th binding.
+     *
+     * @param i the binding position
+     * @return the column index
+     */
+    int column(int i) {
+        return columns[i];
+    }
+
+    /**
+     * Returns the setter of the `i`th binding.
+     *
+     * @param i the binding position
+     * @return the property setter
+     */
+    PropertySetter setter(int i) {
+        return setters[i];
+    }
+
+    /**
+     * Returns the reader kind of the `i`th binding.
+     *
+     * @param i the binding position
+     * @return the reader kind
+     */
+    byte reader(int i) {
+        return readers[i];
+    }
+
+    static ColumnBindingPlan of(Map<Integer, PropertySetter> columnIndex) {
+        Map<Integer, PropertySetter> sorted = new TreeMap<>(columnIndex);
+        int size = sorted.size();
+        int[] columns = new int[size];
+        PropertySetter[] setters = new PropertySetter[size];
+        byte[] readers = new byte[size];
+        int i = 0;
+        for (Map.Entry<Integer, PropertySetter> entry : sorted.entrySet()) {
+            PropertySetter setter = entry.getValue();
+            columns[i] = entry.getKey();
+            setters[i] = setter;
+            readers[i] = readerOf(setter);
+            i++;
+        }
+        return new ColumnBindingPlan(columns, setters, readers);
+    }
+
+    private static byte readerOf(PropertySetter setter) {
+        if (setter instanceof CompiledPropertySetter.IntSetter) {
+            return READ_INT;
+        } else if (setter instanceof CompiledPropertySetter.LongSetter) {
+            return READ_LONG;
+        } else if (setter instanceof CompiledPropertySetter.DoubleSetter) {
+            return READ_DOUBLE;
+        }
+        return READ_OBJECT;
+    }
+}
@@ -0,0 +1,451 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.osgl.util.S;
+
+import java.util.*;
+
+/**
+ * Data read from sheets in columns.
+ *
+ * Each mapped column keeps its values in a primitive array instead of
+ * one boxed value per cell:
+ *
+ * * {@link ColumnType#LONG} - integral numbers in a `long[]`
+ * * {@link ColumnType#DOUBLE} - numbers in a `double[]`
+ * * {@link ColumnType#BOOLEAN} - booleans in a `long[]` as `0` or `1`
+ * * {@link ColumnType#DATE} - dates in a `long[]` as epoch milliseconds
+ * * {@link ColumnType#STRING} - dictionary codes in an `int[]`, each
+ *   distinct string is stored once in the dictionary
+ *
+ * Blank cells are tracked in a null bitmap of the column.
+ *
+ * The type of a column is decided by the values read into it. A `LONG`
+ * column is promoted to `DOUBLE` when a fractional number is read, and
+ * a column is promoted to `STRING` when it reads values of different types.
+ *
+ * Note numbers are typed by their values, not by the number format of the
+ * cells as rows read into {@link Map maps} are: `5.0` is read as `LONG`
+ * even in a cell formatted with decimal places, and `1.5` is kept as
+ * `DOUBLE` in a cell formatted without decimal places, where it is read
+ * as `1` into a map.
+ *
+ * @see ExcelReader#readColumnar()
+ */
+public class ColumnarSheet {
+
+    public enum ColumnType {
+        LONG, DOUBLE, BOOLEAN, DATE, STRING
+    }
+
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+    private int rowCount;
+
+    ColumnarSheet() {
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return names of the columns in the order they are found
+     */
+    public List<String> columnNames() {
+        return new ArrayList<>(columns.keySet());
+    }
+
+    /**
+     * Returns the column by name.
+     *
+     * @param name the column name
+     * @return the column or `null` if not found
+     */
+    public Column column(String name) {
+        return columns.get(name);
+    }
+
+    /**
+     * Returns the column by name, create it if not found.
+     */
+    Column obtainColumn(String name) {
+        Column column = columns.get(name);
+        if (null == column) {
+            column = new Column(name);
+            column.padTo(rowCount);
+            columns.put(name, column);
+        }
+        return column;
+    }
+
+    /**
+     * Accept the row being read.
+     */
+    void endRow() {
+        rowCount++;
+    }
+
+    /**
+     * Append `null` to the columns not filled by the rows read.
+     */
+    void padColumns() {
+        for (Column column : columns.values()) {
+            column.padTo(rowCount);
+        }
+    }
+
+    public static final class Column {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final String name;
+        private ColumnType type;
+        private int size;
+        private final BitSet nulls = new BitSet();
+        private long[] longs;
+        private double[] doubles;
+        private int[] codes;
+        private Map<String, Integer> dictionaryIndex;
+        private List<String> dictionary;
+
+        private Column(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return the column type, or `null` if all values are `null`
+         */
+        public ColumnType type() {
+            return type;
+        }
+
+        /**
+         * @return the number of values in the column
+         */
+        public int size() {
+            return size;
+        }
+
+        public boolean isNull(int row) {
+            checkRow(row);
+            return nulls.get(row);
+        }
+
+        /**
+         * Returns the value of a `LONG`, `BOOLEAN` or `DATE` column.
+         *
+         * @param row the row index
+         * @return the value, or `0` if the value is `null`
+         */
+        public long getLong(int row) {
+            checkRow(row);
+            if (ColumnType.DOUBLE == type) {
+                return (long) doubles[row];
+            }
+            checkType(ColumnType.LONG, ColumnType.BOOLEAN, ColumnType.DATE);
+            return null == longs ? 0 : longs[row];
+        }
+
+        /**
+         * Returns the value of a `DOUBLE` or `LONG` column.
+         *
+         * @param row the row index
+         * @return the value, or `0` if the value is `null`
+         */
+        public double getDouble(int row) {
+            checkRow(row);
+            if (ColumnType.LONG == type) {
+                return longs[row];
+            }
+            checkType(ColumnType.DOUBLE);
+            return null == doubles ? 0 : doubles[row];
+        }
+
+        public boolean getBoolean(int row) {
+            checkRow(row);
+            checkType(ColumnType.BOOLEAN);
+            return null != longs && longs[row] != 0;
+        }
+
+        public Date getDate(int row) {
+            checkRow(row);
+            checkType(ColumnType.DATE);
+            return nulls.get(row) ? null : new Date(longs[row]);
+        }
+
+        /**
+         * Returns the value of a row as string.
+         *
+         * @param row the row index
+         * @return the value or `null` if the value is `null`
+         */
+        public String getString(int row) {
+            checkRow(row);
+            if (nulls.get(row)) {
+                return null;
+            }
+            if (ColumnType.STRING == type) {
+                return dictionary.get(codes[row]);
+            }
+            return S.string(get(row));
+        }
+
+        /**
+         * Returns the boxed value of a row.
+         *
+         * @param row the row index
+         * @return the value or `null` if the value is `null`
+         */
+        public Object get(int row) {
+            checkRow(row);
+            if (nulls.get(row)) {
+                return null;
+            }
+            switch (type) {
+                case LONG:
+                    return longs[row];
+                case DOUBLE:
+                    return doubles[row];
+                case BOOLEAN:
+                    return longs[row] != 0;
+                case DATE:
+                    return new Date(longs[row]);
+                default:
+                    return dictionary.get(codes[row]);
+            }
+        }
+
+        /**
+         * @return a copy of the values of a `LONG`, `BOOLEAN` or `DATE` column
+         */
+        public long[] longs() {
+            checkType(ColumnType.LONG, ColumnType.BOOLEAN, ColumnType.DATE);
+            return null == longs ? new long[size] : Arrays.copyOf(longs, size);
+        }
+
+        /**
+         * @return a copy of the values of a `DOUBLE` column
+         */
+        public double[] doubles() {
+            checkType(ColumnType.DOUBLE);
+            return null == doubles ? new double[size] : Arrays.copyOf(doubles, size);
+        }
+
+        /**
+         * @return a copy of the dictionary codes of a `STRING` column
+         */
+        public int[] codes() {
+            checkType(ColumnType.STRING);
+            return null == codes ? new int[size] : Arrays.copyOf(codes, size);
+        }
+
+        /**
+         * @return the dictionary of a `STRING` column
+         */
+        public List<String> dictionary() {
+            checkType(ColumnType.STRING);
+            return null == dictionary ? Collections.<String>emptyList() : Collections.unmodifiableList(dictionary);
+        }
+
+        /**
+         * @return a copy of the null bitmap
+         */
+        public BitSet nulls() {
+            return (BitSet) nulls.clone();
+        }
+
+        void appendNull() {
+            ensureCapacity(size + 1);
+            nulls.set(size++);
+        }
+
+        void appendNumber(double n) {
+            long l = (long) n;
+            if (null == type) {
+                setType(l == n ? ColumnType.LONG : ColumnType.DOUBLE);
+            }
+            switch (type) {
+                case LONG:
+                    if (l == n) {
+                        ensureCapacity(size + 1);
+                        longs[size++] = l;
+                        return;
+                    }
+                    promoteToDouble();
+                    // fall through
+                case DOUBLE:
+                    ensureCapacity(size + 1);
+                    doubles[size++] = n;
+                    return;
+                default:
+                    append(l == n ? (Object) l : (Object) n);
+            }
+        }
+
+        void append(Object value) {
+            if (null == value) {
+                appendNull();
+                return;
+            }
+            if (value instanceof Number) {
+                if (null == type || ColumnType.LONG == type || ColumnType.DOUBLE == type) {
+                    appendNumber(((Number) value).doubleValue());
+                    return;
+                }
+            } else if (value instanceof Boolean) {
+                if (null == type) {
+                    setType(ColumnType.BOOLEAN);
+                }
+                if (ColumnType.BOOLEAN == type) {
+                    ensureCapacity(size + 1);
+                    longs[size++] = (Boolean) value ? 1 : 0;
+                    return;
+                }
+            } else if (value instanceof Date) {
+                if (null == type) {
+                    setType(ColumnType.DATE);
+                }
+                if (ColumnType.DATE == type) {
+                    ensureCapacity(size + 1);
+                    longs[size++] = ((Date) value).getTime();
+                    return;
+                }
+            }
+            if (null == type) {
+                setType(ColumnType.STRING);
+            } else if (ColumnType.STRING != type) {
+                promoteToString();
+            }
+            String s = value instanceof String ? (String) value : S.string(value);
+            ensureCapacity(size + 1);
+            codes[size++] = code(s);
+        }
+
+        void padTo(int newSize) {
+            while (size < newSize) {
+                appendNull();
+            }
+        }
+
+        private int code(String s) {
+            Integer code = dictionaryIndex.get(s);
+            if (null == code) {
+                code = dictionary.size();
+                dictionary.add(s);
+                dictionaryIndex.put(s, code);
+            }
+            return code;
+        }
+
+        private void setType(ColumnType type) {
+            this.type = type;
+            int capacity = Math.max(INITIAL_CAPACITY, size);
+            switch (type) {
+                case DOUBLE:
+                    doubles = new double[capacity];
+                    break;
+                case STRING:
+                    codes = new int[capacity];
+                    dictionary = new ArrayList<>();
+                    dictionaryIndex = new HashMap<>();
+                    break;
+                default:
+                    longs = new long[capacity];
+            }
+        }
+
+        private void promoteToDouble() {
+            double[] values = new double[longs.length];
+            for (int i = 0; i < size; ++i) {
+                values[i] = longs[i];
+            }
+            longs = null;
+            doubles = values;
+            type = ColumnType.DOUBLE;
+        }
+
+        private void promoteToString() {
+            String[] values = new String[size];
+            for (int i = 0; i < size; ++i) {
+                if (!nulls.get(i)) {
+                    values[i] = S.string(get(i));
+                }
+            }
+            longs = null;
+            doubles = null;
+            setType(ColumnType.STRING);
+            for (int i = 0; i < size; ++i) {
+                if (null != values[i]) {
+                    codes[i] = code(values[i]);
+                }
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (null == type) {
+                return;
+            }
+            switch (type) {
+                case DOUBLE:
+                    if (capacity > doubles.length) {
+                        doubles = Arrays.copyOf(doubles, Math.max(capacity, doubles.length * 2));
+                    }
+                    break;
+                case STRING:
+                    if (capacity > codes.length) {
+                        codes = Arrays.copyOf(codes, Math.max(capacity, codes.length * 2));
+                    }
+                    break;
+                default:
+                    if (capacity > longs.length) {
+                        longs = Arrays.copyOf(longs, Math.max(capacity, longs.length * 2));
+                    }
+            }
+        }
+
+        private void checkRow(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException(S.fmt("Row index (%s) is out of range", row));
+            }
+        }
+
+        private void checkType(ColumnType... types) {
+            if (null == type) {
+                return;
+            }
+            for (ColumnType t : types) {
+                if (t == type) {
+                    return;
+                }
+            }
+            throw new IllegalStateException(S.fmt("Column[%s] is of type %s", name, type));
+        }
+    }
+}
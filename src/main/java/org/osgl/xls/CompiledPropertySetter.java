@@ -0,0 +1,272 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.osgl.$;
+import org.osgl.util.E;
+import org.osgl.util.PropertySetter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * A {@link PropertySetter} that sets property value through a
+ * {@link MethodHandle} bound to the setter method or field.
+ *
+ * Values of the property type are set directly, values of primitive
+ * properties are passed without boxing. Any other value, including `null`,
+ * is passed to the fallback reflective setter, which does the type conversion.
+ */
+abstract class CompiledPropertySetter implements PropertySetter {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    protected final MethodHandle handle;
+    protected final PropertySetter fallback;
+
+    CompiledPropertySetter(MethodHandle handle, PropertySetter fallback) {
+        this.handle = handle;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void set(Object entity, Object value, Object index) {
+        try {
+            if (null == value || !setDirectly(entity, value)) {
+                fallback.set(entity, value, index);
+            }
+        } catch (Throwable e) {
+            throw wrap(e);
+        }
+    }
+
+    /*
+     * Invoke a typed setter and wrap checked exceptions
+     */
+    static RuntimeException wrap(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return E.unexpected(e);
+    }
+
+    @Override
+    public void setObjectFactory($.Function<Class<?>, Object> factory) {
+        fallback.setObjectFactory(factory);
+    }
+
+    @Override
+    public void setStringValueResolver($.Func2<String, Class<?>, ?> stringValueResolver) {
+        fallback.setStringValueResolver(stringValueResolver);
+    }
+
+    /**
+     * Set the value through the method handle.
+     *
+     * @param entity the entity
+     * @param value the value, not `null`
+     * @return `true` if value is set or `false` if the value needs conversion
+     * @throws Throwable any exception raised by the setter
+     */
+    protected abstract boolean setDirectly(Object entity, Object value) throws Throwable;
+
+    /**
+     * Returns a compiled setter of the setter method or the `fallback` setter
+     * if the method cannot be compiled.
+     *
+     * @param method the setter method
+     * @param fallback the reflective setter
+     * @return a compiled setter or the `fallback`
+     */
+    static PropertySetter of(Method method, PropertySetter fallback) {
+        Class<?>[] paramTypes = method.getParameterTypes();
+        if (paramTypes.length != 1 || Modifier.isStatic(method.getModifiers())) {
+            return fallback;
+        }
+        try {
+            method.setAccessible(true);
+            return of(LOOKUP.unreflect(method), paramTypes[0], fallback);
+        } catch (Exception e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Returns a compiled setter of the field or the `fallback` setter
+     * if the field cannot be compiled.
+     *
+     * @param field the field
+     * @param fallback the reflective setter
+     * @return a compiled setter or the `fallback`
+     */
+    static PropertySetter of(Field field, PropertySetter fallback) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+            return fallback;
+        }
+        try {
+            field.setAccessible(true);
+            return of(LOOKUP.unreflectSetter(field), field.getType(), fallback);
+        } catch (Exception e) {
+            return fallback;
+        }
+    }
+
+    private static PropertySetter of(MethodHandle handle, Class<?> type, PropertySetter fallback) {
+        if (int.class == type) {
+            return new IntSetter(handle.asType(MethodType.methodType(void.class, Object.class, int.class)), fallback);
+        } else if (long.class == type) {
+            return new LongSetter(handle.asType(MethodType.methodType(void.class, Object.class, long.class)), fallback);
+        } else if (double.class == type) {
+            return new DoubleSetter(handle.asType(MethodType.methodType(void.class, Object.class, double.class)), fallback);
+        } else if (boolean.class == type) {
+            return new BooleanSetter(handle.asType(MethodType.methodType(void.class, Object.class, boolean.class)), fallback);
+        } else if (type.isPrimitive()) {
+            return fallback;
+        } else if (type.getName().startsWith("java.time.")) {
+            // only loaded when java.time is present
+            PropertySetter setter = JavaTimeSetter.of(handle, type, fallback);
+            if (null != setter) {
+                return setter;
+            }
+        }
+        return new ObjectSetter(handle.asType(MethodType.methodType(void.class, Object.class, Object.class)), type, fallback);
+    }
+
+    // integral values which can be converted to int/long without loss
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    static final class IntSetter extends CompiledPropertySetter {
+        IntSetter(MethodHandle handle, PropertySetter fallback) {
+            super(handle, fallback);
+        }
+
+        void setInt(Object entity, int value) {
+            try {
+                handle.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        protected boolean setDirectly(Object entity, Object value) throws Throwable {
+            if (!isIntegral(value)) {
+                return false;
+            }
+            long n = ((Number) value).longValue();
+            if (n < Integer.MIN_VALUE || n > Integer.MAX_VALUE) {
+                return false;
+            }
+            handle.invokeExact(entity, (int) n);
+            return true;
+        }
+    }
+
+    static final class LongSetter extends CompiledPropertySetter {
+        LongSetter(MethodHandle handle, PropertySetter fallback) {
+            super(handle, fallback);
+        }
+
+        void setLong(Object entity, long value) {
+            try {
+                handle.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        protected boolean setDirectly(Object entity, Object value) throws Throwable {
+            if (!isIntegral(value)) {
+                return false;
+            }
+            handle.invokeExact(entity, ((Number) value).longValue());
+            return true;
+        }
+    }
+
+    static final class DoubleSetter extends CompiledPropertySetter {
+        DoubleSetter(MethodHandle handle, PropertySetter fallback) {
+            super(handle, fallback);
+        }
+
+        void setDouble(Object entity, double value) {
+            try {
+                handle.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        protected boolean setDirectly(Object entity, Object value) throws Throwable {
+            if (!(value instanceof Double || isIntegral(value))) {
+                return false;
+            }
+            handle.invokeExact(entity, ((Number) value).doubleValue());
+            return true;
+        }
+    }
+
+    static final class BooleanSetter extends CompiledPropertySetter {
+        BooleanSetter(MethodHandle handle, PropertySetter fallback) {
+            super(handle, fallback);
+        }
+
+        @Override
+        protected boolean setDirectly(Object entity, Object value) throws Throwable {
+            if (!(value instanceof Boolean)) {
+                return false;
+            }
+            handle.invokeExact(entity, ((Boolean) value).booleanValue());
+            return true;
+        }
+    }
+
+    static final class ObjectSetter extends CompiledPropertySetter {
+        private final Class<?> type;
+
+        ObjectSetter(MethodHandle handle, Class<?> type, PropertySetter fallback) {
+            super(handle, fallback);
+            this.type = type;
+        }
+
+        @Override
+        protected boolean setDirectly(Object entity, Object value) throws Throwable {
+            if (!type.isInstance(value)) {
+                return false;
+            }
+            handle.invokeExact(entity, value);
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+/**
+ * Receives the errors tolerated by {@link ExcelReader} when it is not
+ * in {@link ExcelReader.TolerantLevel#STRICT strict} mode.
+ *
+ * Errors are passed in their raw form, formatting messages is left to
+ * the sink. An error sink might abort the reading by throwing out an
+ * exception.
+ *
+ * @see ReadReport
+ * @see ExcelReader.Builder#errorSink(ErrorSink)
+ */
+public interface ErrorSink {
+
+    enum Kind {
+        /**
+         * Error reading a cell value
+         */
+        READ_CELL,
+        /**
+         * Cell with error value, e.g. `#DIV/0!`
+         */
+        ERROR_CELL,
+        /**
+         * Cell of unknown type
+         */
+        UNKNOWN_CELL_TYPE,
+        /**
+         * Error setting cell value to POJO property
+         */
+        SET_PROPERTY,
+        /**
+         * Some of the schema properties are not mapped to columns
+         */
+        COLUMN_NOT_MAPPED,
+        /**
+         * Caption row not found in the sheet
+         */
+        CAPTION_ROW_NOT_FOUND,
+        /**
+         * The configured caption row is out of the rows of the sheet,
+         * the caption row is probed from the first row instead
+         */
+        CAPTION_ROW_OUT_OF_SCOPE
+    }
+
+    /**
+     * Receive an error.
+     *
+     * @param kind
+     *         the error kind
+     * @param sheetName
+     *         the sheet where the error occurred
+     * @param rowIndex
+     *         the `0` based row index, `-1` if not applied
+     * @param columnIndex
+     *         the `0` based column index, `-1` if not applied
+     * @param detail
+     *         the cell value failed to set for {@link Kind#SET_PROPERTY},
+     *         or the reason for {@link Kind#CAPTION_ROW_NOT_FOUND}, `null` otherwise
+     * @param cause
+     *         the exception caused the error, `null` if not applied
+     */
+    void onError(Kind kind, String sheetName, int rowIndex, int columnIndex, Object detail, Throwable cause);
+
+}
@@ -21,8 +21,13 @@ package org.osgl.xls;
  */
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellAddress;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.osgl.$;
 import org.osgl.exception.NotAppliedException;
@@ -33,9 +38,13 @@ import org.osgl.util.*;
 import osgl.version.Version;
 
 import java.io.*;
+import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ExcelReader {
 
@@ -56,6 +65,9 @@ public class ExcelReader {
 
     public static final Logger LOGGER = LogManager.get(ExcelReader.class);
 
+    // result lists are not pre-sized beyond this number of rows
+    private static final int MAX_PRESIZED_ROWS = 1 << 16;
+
     private final boolean isXlsx;
     private final $.Func0<InputStream> inputStreamProvider;
     private final $.Predicate<Sheet> sheetSelector;
@@ -65,6 +77,21 @@ public class ExcelReader {
     private final $.Function<String, String> headerTransformer;
     private final Map<String, String> headerMapping;
     private final String terminator;
+    private final boolean streaming;
+    private final int parallelism;
+    private final Executor executor;
+    private final int rowChunkSize;
+    private final int headerProbeRows;
+    private final double headerMinScore;
+    private final int skipRows;
+    private final int limit;
+    private final List<String> filterHeaders;
+    private final List<$.Function<Object, Boolean>> filterConditions;
+    private final ReadCache cache;
+    private final ErrorSink errorSink;
+    private final ReadListener listener;
+    // errors reported by the scanners, results read with errors are not cached
+    private final AtomicLong errorCount = new AtomicLong();
 
     private ExcelReader(Builder builder) {
         inputStreamProvider = $.requireNotNull(builder.inputStreamProvider);
@@ -76,212 +103,1522 @@ public class ExcelReader {
         headerMapping = builder.headerMapping;
         headerTransformer = builder.headerTransformer;
         terminator = builder.terminator;
+        streaming = builder.streaming;
+        parallelism = builder.parallelism;
+        executor = builder.executor;
+        rowChunkSize = builder.rowChunkSize;
+        headerProbeRows = builder.headerProbeRows;
+        headerMinScore = builder.headerMinScore;
+        skipRows = builder.skipRows;
+        limit = builder.limit;
+        filterHeaders = new ArrayList<>(builder.filterHeaders);
+        filterConditions = new ArrayList<>(builder.filterConditions);
+        cache = builder.cache;
+        errorSink = builder.errorSink;
+        listener = builder.listener;
+    }
+
+    /**
+     * Inspect the workbook without reading the sheet data. Only the first
+     * row of each sheet is read.
+     *
+     * @return the workbook metadata
+     * @see #inspect(int)
+     */
+    public WorkbookInfo inspect() {
+        return inspect(1);
+    }
+
+    /**
+     * Inspect the workbook without reading the sheet data.
+     *
+     * The workbook is parsed with the streaming parser, which reads the sheet list
+     * and properties out of the workbook part and stops reading each sheet after
+     * the dimension and the first `rows` rows. The sheet selector is not applied,
+     * all sheets are inspected.
+     *
+     * @param rows
+     *         the number of rows to be read at the beginning of each sheet
+     * @return the workbook metadata
+     */
+    public WorkbookInfo inspect(int rows) {
+        E.illegalArgumentIf(rows < 0, "rows shall not be negative");
+        final SheetScanner scanner = openStreamingScanner();
+        try {
+            WorkbookInfo info = new WorkbookInfo(scanner.firstVisibleTab());
+            while (scanner.nextSheet()) {
+                WorkbookInfo.SheetInfo sheet = new WorkbookInfo.SheetInfo(scanner.sheetName(), scanner.sheetIndex(), scanner.sheetVisibility(), scanner.dimension());
+                for (int i = 0; i < rows && scanner.nextRow(); ++i) {
+                    Map<Integer, Object> cells = scanner.cells();
+                    if (!cells.isEmpty()) {
+                        sheet.addRow(cells);
+                    }
+                }
+                info.add(sheet);
+            }
+            return info;
+        } finally {
+            IO.close(scanner);
+        }
     }
 
     public LinkedHashMap<String, List<Map<String, Object>>> readSheets() {
+        return cached("readSheets", Map.class, new $.F0<LinkedHashMap<String, List<Map<String, Object>>>>() {
+            @Override
+            public LinkedHashMap<String, List<Map<String, Object>>> apply() throws NotAppliedException, $.Break {
+                return doReadSheets();
+            }
+        });
+    }
+
+    private LinkedHashMap<String, List<Map<String, Object>>> doReadSheets() {
+        if (isParallel()) {
+            return (LinkedHashMap) readSheetsInParallel(Map.class);
+        }
         final LinkedHashMap<String, List<Map<String, Object>>> retVal = new LinkedHashMap<>();
-        final Workbook wb = loadWorkbook();
+        final SheetScanner scanner = openScanner();
+        Page page = new Page();
         try {
             Map<String, PropertySetter> setterMap = processSchemaMapping(Map.class);
             if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
                 throw new ExcelReadException("No schema mapping found in strict mode");
             }
-            for (Sheet sheet : wb) {
-                if (!sheetSelector.test(sheet)) {
+            while (scanner.nextSheet()) {
+                if (!scanner.isSelected(sheetSelector)) {
                     continue;
                 }
                 List<Map> sheetData = new ArrayList<>();
-                read(sheet, sheetData, setterMap, Map.class);
-                retVal.put(sheet.getSheetName(), (List) sheetData);
+                read(scanner, sheetData, setterMap, Map.class, page);
+                retVal.put(scanner.sheetName(), (List) sheetData);
             }
         } finally {
-            IO.close(wb);
+            endRead(scanner);
         }
         return retVal;
     }
 
-    public <T> LinkedHashMap<String, List<T>> readSheets(Class<T> pojoType) {
+    public <T> LinkedHashMap<String, List<T>> readSheets(final Class<T> pojoType) {
+        return cached("readSheets", pojoType, new $.F0<LinkedHashMap<String, List<T>>>() {
+            @Override
+            public LinkedHashMap<String, List<T>> apply() throws NotAppliedException, $.Break {
+                return doReadSheets(pojoType);
+            }
+        });
+    }
+
+    private <T> LinkedHashMap<String, List<T>> doReadSheets(Class<T> pojoType) {
+        if (isParallel()) {
+            return readSheetsInParallel(pojoType);
+        }
         final LinkedHashMap<String, List<T>> retVal = new LinkedHashMap<>();
-        final Workbook wb = loadWorkbook();
+        final SheetScanner scanner = openScanner();
+        Page page = new Page();
         try {
             Map<String, PropertySetter> setterMap = processSchemaMapping(pojoType);
             if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
                 throw new ExcelReadException("No schema mapping found in strict mode");
             }
-            for (Sheet sheet : wb) {
-                if (!sheetSelector.test(sheet)) {
+            while (scanner.nextSheet()) {
+                if (!scanner.isSelected(sheetSelector)) {
                     continue;
                 }
                 List<T> sheetData = new ArrayList<>();
-                read(sheet, sheetData, setterMap, pojoType);
-                retVal.put(sheet.getSheetName(), (List) sheetData);
+                read(scanner, sheetData, setterMap, pojoType, page);
+                retVal.put(scanner.sheetName(), (List) sheetData);
             }
         } finally {
-            IO.close(wb);
+            endRead(scanner);
         }
         return retVal;
     }
 
-    public List<Map<String, Object>> readSheet(String sheetName) {
-        final Workbook wb = loadWorkbook();
+    /*
+     * Returns the result of `reader` out of the read cache if there is one.
+     * The result is put into the cache if not found and no error is reported
+     * while reading it, so that a cache hit never hides errors from the error
+     * sink and the listener.
+     *
+     * `op` identifies the read method and its arguments
+     */
+    private <T> T cached(String op, Class<?> schema, $.Func0<T> reader) {
+        String key = null == cache ? null : cacheKey(op, schema);
+        if (null == key) {
+            return buffered(reader.apply());
+        }
+        Object result = cache.get(key);
+        if (null == result) {
+            long errors = errorCount.get();
+            result = reader.apply();
+            if (errors == errorCount.get()) {
+                cache.put(key, result);
+            } else {
+                return buffered((T) result);
+            }
+        }
+        return (T) buffered(copyResult(result));
+    }
+
+    /*
+     * Notify the listener of the number of rows returned in a result
+     */
+    private <T> T buffered(T result) {
+        if (null != listener) {
+            int rows = 0;
+            if (result instanceof Map) {
+                for (Object sheet : ((Map<?, ?>) result).values()) {
+                    rows += ((List<?>) sheet).size();
+                }
+            } else {
+                rows = ((List<?>) result).size();
+            }
+            listener.onRowsBuffered(rows);
+        }
+        return result;
+    }
+
+    /*
+     * Returns the cache key of a read, which is made up of the digest of the
+     * Excel content and the digest of the reader configuration.
+     *
+     * The digest of a local file is remembered by the cache against its path,
+     * length and last modified time, thus an unchanged file is not read again
+     * to identify it.
+     *
+     * Returns `null` if the configuration cannot be identified by value, i.e.
+     * it contains functions other than the built-in ones, or rows of the
+     * schema cannot be copied out of the cache
+     */
+    private String cacheKey(String op, Class<?> schema) {
+        if (!Map.class.isAssignableFrom(schema) || !filterConditions.isEmpty() || !(sheetSelector instanceof SheetSelector.SheetPredicate)) {
+            return null;
+        }
+        String transformer;
+        if (HeaderTransformStrategy.TO_JAVA_NAME == headerTransformer) {
+            transformer = "TO_JAVA_NAME";
+        } else if (HeaderTransformStrategy.AS_CAPTION == headerTransformer) {
+            transformer = "AS_CAPTION";
+        } else {
+            return null;
+        }
+        String content;
+        if (inputStreamProvider instanceof FileSource) {
+            content = cache.digest(((FileSource) inputStreamProvider).file);
+        } else if (inputStreamProvider instanceof SpooledSource) {
+            content = ReadCache.digest(inputStreamProvider.apply());
+        } else {
+            return null;
+        }
+        StringBuilder config = new StringBuilder(VERSION.toString())
+                .append('|').append(op)
+                .append('|').append(schema.getName())
+                .append('|').append(isXlsx)
+                .append('|').append(sheetSelector)
+                .append('|').append(headerRow)
+                .append('|').append(headerProbeRows)
+                .append('|').append(headerMinScore)
+                .append('|').append(ignoreEmptyRows)
+                .append('|').append(tolerantLevel)
+                .append('|').append(transformer)
+                .append('|').append(new TreeMap<>(headerMapping))
+                .append('|').append(terminator)
+                .append('|').append(skipRows)
+                .append('|').append(limit);
+        return content + "-" + ReadCache.digest(config.toString());
+    }
+
+    /*
+     * Copy a result down to the rows and their date values, so that
+     * changes made by the caller do not leak into the cached result.
+     *
+     * Only results of rows read into maps are cached, see `cacheKey`
+     */
+    private static Object copyResult(Object result) {
+        if (result instanceof LinkedHashMap) {
+            LinkedHashMap<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((LinkedHashMap<?, ?>) result).entrySet()) {
+                copy.put(entry.getKey(), copyResult(entry.getValue()));
+            }
+            return copy;
+        } else if (result instanceof List) {
+            List<?> rows = (List<?>) result;
+            List<Object> copy = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                copy.add(copyRow((Map<?, ?>) row));
+            }
+            return copy;
+        }
+        return result;
+    }
+
+    private static Map<Object, Object> copyRow(Map<?, ?> row) {
+        Map<Object, Object> copy = new LinkedHashMap<>(row);
+        for (Map.Entry<Object, Object> entry : copy.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Date) {
+                entry.setValue(((Date) value).clone());
+            }
+        }
+        return copy;
+    }
+
+    /*
+     * Custom sheet selectors cannot be tested without loading the workbook,
+     * and pages are counted across sheets, in which cases sheets are read
+     * sequentially
+     */
+    private boolean isParallel() {
+        return (null != executor || parallelism > 1) && sheetSelector instanceof SheetSelector.SheetPredicate
+                && 0 == skipRows && Integer.MAX_VALUE == limit;
+    }
+
+    /*
+     * Bind the selected sheets concurrently. POI workbooks are not thread
+     * safe, thus each sheet is read by its own streaming scanner, even if
+     * the reader is not in streaming mode. The scanners of an `.xlsx`
+     * package share the package and its shared strings, an `.xls` file is
+     * opened by each scanner. The result map keeps the order of sheets in
+     * the workbook
+     */
+    private <T> LinkedHashMap<String, List<T>> readSheetsInParallel(final Class<T> pojoType) {
+        final Map<String, PropertySetter> setterMap = processSchemaMapping(pojoType);
+        if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
+            throw new ExcelReadException("No schema mapping found in strict mode");
+        }
+        if (!streaming) {
+            LOGGER.debug("read sheets in parallel with streaming scanners instead of loading the workbook");
+        }
+        final SheetScanner workbook = openStreamingScanner();
+        try {
+            return readSheetsInParallel(workbook, setterMap, pojoType);
+        } finally {
+            endRead(workbook);
+        }
+    }
+
+    private <T> LinkedHashMap<String, List<T>> readSheetsInParallel(final SheetScanner workbook, final Map<String, PropertySetter> setterMap, final Class<T> pojoType) {
+        List<String> sheetNames = workbook.sheetNames();
+        SheetSelector.SheetPredicate selector = (SheetSelector.SheetPredicate) sheetSelector;
+        List<String> selectedNames = new ArrayList<>();
+        final List<FutureTask<List<T>>> tasks = new ArrayList<>();
+        for (int i = 0, n = sheetNames.size(); i < n; ++i) {
+            if (!selector.test(sheetNames.get(i), i)) {
+                continue;
+            }
+            final int sheetIndex = i;
+            tasks.add(new FutureTask<>(new Callable<List<T>>() {
+                @Override
+                public List<T> call() {
+                    SheetScanner scanner = workbook.share();
+                    scanner = instrument(null == scanner ? openStreamingScanner(true) : scanner);
+                    Page page = new Page();
+                    try {
+                        scanner.select(SheetSelector.at(sheetIndex));
+                        List<T> sheetData = new ArrayList<>();
+                        if (scanner.nextSheet()) {
+                            read(scanner, sheetData, setterMap, pojoType, page);
+                        }
+                        return sheetData;
+                    } finally {
+                        IO.close(scanner);
+                    }
+                }
+            }));
+            selectedNames.add(sheetNames.get(i));
+        }
+        LinkedHashMap<String, List<T>> retVal = new LinkedHashMap<>();
+        try {
+            if (null != executor) {
+                for (FutureTask<List<T>> task : tasks) {
+                    executor.execute(task);
+                }
+            } else {
+                // `parallelism` workers take the sheets in turn out of the shared pool
+                final AtomicInteger next = new AtomicInteger();
+                for (int i = 0, workers = Math.min(parallelism, tasks.size()); i < workers; ++i) {
+                    ParallelExecutorHolder.EXECUTOR.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            int i;
+                            while ((i = next.getAndIncrement()) < tasks.size()) {
+                                tasks.get(i).run();
+                            }
+                        }
+                    });
+                }
+            }
+            for (int i = 0, n = tasks.size(); i < n; ++i) {
+                retVal.put(selectedNames.get(i), await(tasks.get(i)));
+            }
+        } finally {
+            for (FutureTask<List<T>> task : tasks) {
+                task.cancel(true);
+            }
+        }
+        return retVal;
+    }
+
+    /*
+     * The pool shared by parallel sheet reads without an executor and batch
+     * reads of files. The number of threads used by a read is bounded by its
+     * parallelism
+     */
+    private static class ParallelExecutorHolder {
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger seq = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "osgl-excel-read-" + seq.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelReadException(e, "Interrupted while waiting for sheet reading");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ExcelReadException(cause);
+        }
+    }
+
+    public List<Map<String, Object>> readSheet(final String sheetName) {
+        return cached("readSheet:" + sheetName.toLowerCase(Locale.ROOT), Map.class, new $.F0<List<Map<String, Object>>>() {
+            @Override
+            public List<Map<String, Object>> apply() throws NotAppliedException, $.Break {
+                return doReadSheet(sheetName);
+            }
+        });
+    }
+
+    private List<Map<String, Object>> doReadSheet(String sheetName) {
+        final SheetScanner scanner = openScanner(SheetSelector.named(sheetName));
+        Page page = new Page();
         try {
             Map<String, PropertySetter> setterMap = processSchemaMapping(Map.class);
             if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
                 throw new ExcelReadException("No schema mapping found in strict mode");
             }
-            for (Sheet sheet : wb) {
-                if (!sheetName.equalsIgnoreCase(sheet.getSheetName())) {
+            while (scanner.nextSheet()) {
+                if (!sheetName.equalsIgnoreCase(scanner.sheetName())) {
                     continue;
                 }
                 List<Map> sheetData = new ArrayList<>();
-                read(sheet, sheetData, setterMap, Map.class);
+                read(scanner, sheetData, setterMap, Map.class, page);
                 return (List) sheetData;
             }
         } finally {
-            IO.close(wb);
+            endRead(scanner);
         }
         return C.list();
     }
 
-    public List<Map<String, Object>> readSheet(int sheetId) {
-        final Workbook wb = loadWorkbook();
+    public List<Map<String, Object>> readSheet(final int sheetId) {
+        return cached("readSheet#" + sheetId, Map.class, new $.F0<List<Map<String, Object>>>() {
+            @Override
+            public List<Map<String, Object>> apply() throws NotAppliedException, $.Break {
+                return doReadSheet(sheetId);
+            }
+        });
+    }
+
+    private List<Map<String, Object>> doReadSheet(int sheetId) {
+        final SheetScanner scanner = openScanner(SheetSelector.at(sheetId));
+        Page page = new Page();
         try {
             Map<String, PropertySetter> setterMap = processSchemaMapping(Map.class);
             if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
                 throw new ExcelReadException("No schema mapping found in strict mode");
             }
-            Sheet sheet = wb.getSheetAt(sheetId);
-            List<Map> sheetData = new ArrayList<>();
-            read(sheet, sheetData, setterMap, Map.class);
-            return (List) sheetData;
+            while (scanner.nextSheet()) {
+                if (sheetId != scanner.sheetIndex()) {
+                    continue;
+                }
+                List<Map> sheetData = new ArrayList<>();
+                read(scanner, sheetData, setterMap, Map.class, page);
+                return (List) sheetData;
+            }
         } finally {
-            IO.close(wb);
+            endRead(scanner);
         }
+        throw new IllegalArgumentException(S.fmt("Sheet index (%s) is out of range", sheetId));
     }
 
     public List<Map<String, Object>> readFirstVisibleTab() {
-        final Workbook wb = loadWorkbook();
+        return cached("readFirstVisibleTab", Map.class, new $.F0<List<Map<String, Object>>>() {
+            @Override
+            public List<Map<String, Object>> apply() throws NotAppliedException, $.Break {
+                return doReadFirstVisibleTab();
+            }
+        });
+    }
+
+    private List<Map<String, Object>> doReadFirstVisibleTab() {
+        final SheetScanner scanner = openScanner(SheetSelector.ALL);
+        Page page = new Page();
         try {
+            scanner.select(SheetSelector.at(scanner.firstVisibleTab()));
             Map<String, PropertySetter> setterMap = processSchemaMapping(Map.class);
             if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
                 throw new ExcelReadException("No schema mapping found in strict mode");
             }
-            Sheet sheet = wb.getSheetAt(wb.getFirstVisibleTab());
-            List<Map> sheetData = new ArrayList<>();
-            read(sheet, sheetData, setterMap, Map.class);
-            return (List) sheetData;
+            while (scanner.nextSheet()) {
+                if (scanner.firstVisibleTab() != scanner.sheetIndex()) {
+                    continue;
+                }
+                List<Map> sheetData = new ArrayList<>();
+                read(scanner, sheetData, setterMap, Map.class, page);
+                return (List) sheetData;
+            }
         } finally {
-            IO.close(wb);
+            endRead(scanner);
         }
+        return C.list();
     }
 
     public List<Map<String, Object>> read() {
         return (List) read(Map.class);
     }
 
-    public <TYPE> List<TYPE> read(Class<? extends TYPE> schema) {
+    /**
+     * Read rows into {@link Map maps} in the background.
+     *
+     * @return the future of the rows
+     * @see #readAsync(Class, Executor)
+     */
+    public Future<List<Map<String, Object>>> readAsync() {
+        return (Future) readAsync(Map.class);
+    }
+
+    /**
+     * Read rows into instances of `schema` type in the background with the
+     * default async executor, which runs each read in a virtual thread if the
+     * runtime supports it, or in a bounded pool of daemon threads otherwise.
+     *
+     * @param schema
+     *         specify the POJO object type
+     * @return the future of the rows
+     * @see #readAsync(Class, Executor)
+     */
+    public <TYPE> Future<List<TYPE>> readAsync(Class<? extends TYPE> schema) {
+        return readAsync(schema, AsyncExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Read rows into instances of `schema` type in the background.
+     *
+     * Cancelling the future returned always interrupts the reading thread,
+     * which stops reading at the next row and closes the workbook package.
+     * Loading the workbook, or spooling the content of a streaming read, is
+     * not interrupted by POI. A read cancelled during that phase stops as
+     * soon as the workbook is opened, before any row is read.
+     *
+     * @param schema
+     *         specify the POJO object type
+     * @param executor
+     *         the executor that runs the read
+     * @return the future of the rows
+     */
+    public <TYPE> Future<List<TYPE>> readAsync(final Class<? extends TYPE> schema, Executor executor) {
+        FutureTask<List<TYPE>> task = new FutureTask<List<TYPE>>(new Callable<List<TYPE>>() {
+            @Override
+            public List<TYPE> call() {
+                return read(schema);
+            }
+        }) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return super.cancel(true);
+            }
+        };
+        executor.execute(task);
+        return task;
+    }
+
+    public <TYPE> List<TYPE> read(final Class<? extends TYPE> schema) {
+        return cached("read", schema, new $.F0<List<TYPE>>() {
+            @Override
+            public List<TYPE> apply() throws NotAppliedException, $.Break {
+                return doRead(schema);
+            }
+        });
+    }
+
+    private <TYPE> List<TYPE> doRead(Class<? extends TYPE> schema) {
         final List<TYPE> dataList = new ArrayList<>();
-        final Workbook wb = loadWorkbook();
+        final SheetScanner scanner = openScanner();
+        Page page = new Page();
         try {
             Map<String, PropertySetter> setterMap = processSchemaMapping(schema);
             if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
                 throw new ExcelReadException("No schema mapping found in strict mode");
             }
-            read(wb, dataList, setterMap, schema);
+            while (scanner.nextSheet()) {
+                if (!scanner.isSelected(sheetSelector)) {
+                    continue;
+                }
+                read(scanner, dataList, setterMap, schema, page);
+            }
         } finally {
-            IO.close(wb);
+            endRead(scanner);
         }
         return dataList;
     }
 
-    private <TYPE> Map<String, PropertySetter> processSchemaMapping(Class<? extends TYPE> schema) {
-        Map<String, PropertySetter> schemaMapping = new HashMap<>();
+    /**
+     * Read rows into {@link Map maps} and pass them to `handler` one by one.
+     *
+     * @param handler
+     *         the row handler
+     * @see #read(Class, RowHandler)
+     */
+    public void read(RowHandler<? super Map<String, Object>> handler) {
+        read((Class) Map.class, handler);
+    }
+
+    /**
+     * Read rows into instances of `schema` type and pass them to `handler`
+     * one by one without collecting them into a list.
+     *
+     * Reading stops when the `handler` returns `false`.
+     *
+     * @param schema
+     *         specify the POJO object type
+     * @param handler
+     *         the row handler
+     */
+    public <TYPE> void read(Class<? extends TYPE> schema, RowHandler<? super TYPE> handler) {
+        final SheetScanner scanner = openScanner();
+        try {
+            Map<String, PropertySetter> setterMap = processSchemaMapping(schema);
+            if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
+                throw new ExcelReadException("No schema mapping found in strict mode");
+            }
+            RowBinder<TYPE> binder = new RowBinder<>(scanner, setterMap, schema, new Page());
+            while (scanner.nextSheet()) {
+                if (!scanner.isSelected(sheetSelector) || !binder.startSheet()) {
+                    continue;
+                }
+                TYPE data;
+                while (null != (data = binder.next())) {
+                    if (!handler.handle(data, scanner.sheetName(), scanner.rowNum())) {
+                        binder.endSheet();
+                        return;
+                    }
+                }
+            }
+        } finally {
+            endRead(scanner);
+        }
+    }
+
+    /**
+     * Read rows into columns.
+     *
+     * Columns are mapped the same way rows are read into {@link Map maps}, and
+     * rows of all selected sheets are appended to the columns.
+     *
+     * @return the data in columns
+     * @see ColumnarSheet
+     */
+    public ColumnarSheet readColumnar() {
+        ColumnarSheet data = new ColumnarSheet();
+        final SheetScanner scanner = openScanner();
+        try {
+            Map<String, PropertySetter> setterMap = processSchemaMapping(Map.class);
+            if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
+                throw new ExcelReadException("No schema mapping found in strict mode");
+            }
+            Page page = new Page();
+            while (scanner.nextSheet()) {
+                if (!scanner.isSelected(sheetSelector)) {
+                    continue;
+                }
+                if (page.isFull()) {
+                    break;
+                }
+                read(scanner, data, setterMap, page);
+            }
+        } finally {
+            endRead(scanner);
+        }
+        data.padColumns();
+        if (null != listener) {
+            listener.onRowsBuffered(data.rowCount());
+        }
+        return data;
+    }
+
+    private void read(SheetScanner scanner, ColumnarSheet data, Map<String, PropertySetter> setterMap, Page page) {
+        ColumnBindingPlan plan = ColumnBindingPlan.of(resolveHeader(scanner, setterMap, true));
+        if (plan.size() < setterMap.size() && (!plan.isEmpty() || tolerantLevel.isStrict())) {
+            scanner.columnIndexMapNotFullyBuilt();
+        }
+        if (plan.isEmpty()) {
+            return;
+        }
+        // when multiple columns map to the same key the last one wins
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < plan.size(); ++i) {
+            positions.put(((MapSetter) plan.setter(i)).key(), i);
+        }
+        int size = positions.size();
+        int[] sheetColumns = new int[size];
+        ColumnarSheet.Column[] columns = new ColumnarSheet.Column[size];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : positions.entrySet()) {
+            sheetColumns[i] = plan.column(entry.getValue());
+            columns[i++] = data.obtainColumn(entry.getKey());
+        }
+        RowFilter filter = rowFilter(scanner);
+        scanner.project(projection(plan, filter));
+        int rows = 0;
+        long cells = 0;
+        int emptyRows = 0;
+        // cells of the row being read, appended only if the row is kept.
+        // A number is kept in `numbers`, otherwise it is `NaN`
+        double[] numbers = new double[size];
+        Object[] values = new Object[size];
+        boolean terminated = false;
+        while (!terminated && !page.isFull() && scanner.nextRow()) {
+            checkInterrupted(scanner);
+            if (null != filter && !filter.test(scanner)) {
+                if (isTerminatorRow(scanner, plan)) {
+                    break;
+                }
+                continue;
+            }
+            int rowCells = 0;
+            for (i = 0; i < size; ++i) {
+                int column = sheetColumns[i];
+                double n = scanner.readDouble(column);
+                numbers[i] = n;
+                if (!Double.isNaN(n)) {
+                    rowCells++;
+                    continue;
+                }
+                Object value = scanner.cellValue(column);
+                if (null != value) {
+                    if (null != terminator && terminator.equals(value)) {
+                        terminated = true;
+                        break;
+                    }
+                    rowCells++;
+                }
+                values[i] = value;
+            }
+            if (terminated) {
+                break;
+            }
+            if (0 == rowCells && ignoreEmptyRows) {
+                emptyRows++;
+                continue;
+            }
+            if (page.skip > 0) {
+                page.skip--;
+                continue;
+            }
+            for (i = 0; i < size; ++i) {
+                double n = numbers[i];
+                if (Double.isNaN(n)) {
+                    columns[i].append(values[i]);
+                } else {
+                    columns[i].appendNumber(n);
+                }
+            }
+            data.endRow();
+            rows++;
+            cells += rowCells;
+            page.remaining--;
+        }
+        data.padColumns();
+        sheetRead(scanner, rows, cells, emptyRows);
+    }
+
+    private void sheetRead(SheetScanner scanner, int rows, long cells, int emptyRows) {
+        if (null != listener) {
+            listener.onSheetRead(scanner.sheetName(), rows, cells, emptyRows);
+        }
+    }
+
+    private <TYPE> Map<String, PropertySetter> processSchemaMapping(final Class<? extends TYPE> schema) {
         final boolean schemaIsPojo = !Map.class.isAssignableFrom(schema);
         if (schemaIsPojo) {
-            Map<String, PropertySetter> pojoSetters = JavaBeanUtil.setters(schema, headerMapping);
-            schemaMapping.putAll(pojoSetters);
-            for (Map.Entry<String, String> entry : headerMapping.entrySet()) {
-                String header = entry.getKey().trim().toLowerCase();
-                String field = entry.getValue();
-                PropertySetter setter = pojoSetters.get(field);
+            SchemaMappingCache.Key key = new SchemaMappingCache.Key(headerMapping, headerTransformer, tolerantLevel.isTolerant());
+            return SchemaMappingCache.get(schema, key, new $.F0<Map<String, PropertySetter>>() {
+                @Override
+                public Map<String, PropertySetter> apply() throws NotAppliedException, $.Break {
+                    return processPojoSchemaMapping(schema);
+                }
+            });
+        }
+        Map<String, PropertySetter> schemaMapping = new HashMap<>();
+        for (Map.Entry<String, String> entry : headerMapping.entrySet()) {
+            schemaMapping.put(entry.getKey(), new MapSetter(entry.getValue()));
+        }
+        return schemaMapping;
+    }
+
+    private Map<String, PropertySetter> processPojoSchemaMapping(Class<?> schema) {
+        Map<String, PropertySetter> schemaMapping = new HashMap<>();
+        Map<String, PropertySetter> pojoSetters = JavaBeanUtil.setters(schema, headerMapping);
+        schemaMapping.putAll(pojoSetters);
+        for (Map.Entry<String, String> entry : headerMapping.entrySet()) {
+            String header = entry.getKey().trim().toLowerCase();
+            String field = entry.getValue();
+            PropertySetter setter = pojoSetters.get(field);
+            if (null != setter) {
+                schemaMapping.put(header, setter);
+            } else if (tolerantLevel.isTolerant()) {
+                field = headerTransformer.apply(header);
+                setter = pojoSetters.get(field);
                 if (null != setter) {
                     schemaMapping.put(header, setter);
-                } else if (tolerantLevel.isTolerant()) {
-                    field = headerTransformer.apply(header);
-                    setter = pojoSetters.get(field);
-                    if (null != setter) {
-                        schemaMapping.put(header, setter);
-                    }
                 }
             }
-        } else {
-            for (Map.Entry<String, String> entry : headerMapping.entrySet()) {
-                schemaMapping.put(entry.getKey(), new MapSetter(entry.getValue()));
-            }
         }
         return schemaMapping;
     }
 
-    private <TYPE> void read(Workbook workbook, final List<TYPE> dataList, Map<String, PropertySetter> setterMap, Class<? extends TYPE> schema) {
-        for (Sheet sheet : workbook) {
-            if (!sheetSelector.test(sheet)) {
-                continue;
+    private <TYPE> void read(SheetScanner scanner, final List<TYPE> dataList, Map<String, PropertySetter> setterMap, Class<? extends TYPE> schema, Page page) {
+        RowBinder<TYPE> binder = new RowBinder<>(scanner, setterMap, schema, page);
+        if (!binder.startSheet()) {
+            return;
+        }
+        if (rowChunkSize > 0) {
+            readInChunks(dataList, binder);
+            return;
+        }
+        if (dataList instanceof ArrayList && null == binder.filter) {
+            ((ArrayList) dataList).ensureCapacity(dataList.size() + expectedRows(scanner, binder));
+        }
+        TYPE data;
+        while (null != (data = binder.next())) {
+            dataList.add(data);
+        }
+    }
+
+    /*
+     * Returns the number of data rows expected in the rest of the current
+     * sheet according to the sheet dimension. The dimension is written by
+     * the application that saved the file, thus the number is capped
+     */
+    private static int expectedRows(SheetScanner scanner, RowBinder<?> binder) {
+        int lastRowNum = scanner.lastRowNum();
+        if (lastRowNum < 0) {
+            return 0;
+        }
+        long rows = Math.min((long) lastRowNum - scanner.rowNum(), binder.page.remaining);
+        return (int) Math.max(0, Math.min(rows, MAX_PRESIZED_ROWS));
+    }
+
+    /*
+     * Build the row filter of the `where` conditions for the current sheet,
+     * the scanner shall be at the caption row.
+     *
+     * Returns `null` if there is no condition
+     */
+    private RowFilter rowFilter(SheetScanner scanner) {
+        int size = filterHeaders.size();
+        if (0 == size) {
+            return null;
+        }
+        Map<Integer, String> headerCells = scanner.headerCells();
+        int[] columns = new int[size];
+        for (int i = 0; i < size; ++i) {
+            String name = filterHeaders.get(i);
+            columns[i] = -1;
+            for (Map.Entry<Integer, String> entry : headerCells.entrySet()) {
+                String header = entry.getValue().trim();
+                if (name.equalsIgnoreCase(header)
+                        || name.equals(headerMapping.get(header.toLowerCase()))
+                        || name.equals(headerTransformer.apply(header))) {
+                    columns[i] = entry.getKey();
+                    break;
+                }
+            }
+            if (columns[i] < 0) {
+                LOGGER.warn("filter column [%s] not found in sheet[%s]", name, scanner.sheetName());
             }
-            read(sheet, dataList, setterMap, schema);
         }
+        $.Function<Object, Boolean>[] conditions = filterConditions.toArray(new $.Function[size]);
+        return new RowFilter(columns, conditions);
     }
 
-    private <TYPE> void read(Sheet sheet, final List<TYPE> dataList, Map<String, PropertySetter> setterMap, Class<? extends TYPE> schema) {
-        $.Var<Integer> headerRowHolder = $.var(this.headerRow);
-        boolean schemaIsMap = Map.class.isAssignableFrom(schema);
-        Map<Integer, PropertySetter> columnIndex = buildColumnIndex(sheet, setterMap, schemaIsMap, headerRowHolder);
-        if (columnIndex.size() < setterMap.size()) {
-            tolerantLevel.columnIndexMapNotFullyBuilt(sheet);
+    /*
+     * Returns the columns read by the binding plan and the row filter
+     */
+    private static BitSet projection(ColumnBindingPlan plan, RowFilter filter) {
+        BitSet columns = new BitSet();
+        for (int i = 0, size = plan.size(); i < size; ++i) {
+            columns.set(plan.column(i));
         }
-        if (columnIndex.isEmpty()) {
-            return;
+        if (null != filter) {
+            filter.addColumnsTo(columns);
         }
-        int startRow = headerRowHolder.get() + 1;
-        int maxRow = sheet.getLastRowNum() + 1;
-        TERMINATED:
-        for (int rowId = startRow; rowId < maxRow; ++rowId) {
-            Object entity = schemaIsMap ? new LinkedHashMap<>() : $.newInstance(schema);
-            Row row = sheet.getRow(rowId);
-            if (null == row) {
-                continue;
+        return columns;
+    }
+
+    /*
+     * Check if the terminator is found in the mapped columns of the current row
+     */
+    private boolean isTerminatorRow(SheetScanner scanner, ColumnBindingPlan plan) {
+        if (null == terminator) {
+            return false;
+        }
+        for (int i = 0, size = plan.size(); i < size; ++i) {
+            if (terminator.equals(scanner.cellValue(plan.column(i)))) {
+                return true;
             }
-            boolean isEmptyRow = true;
-            for (Map.Entry<Integer, PropertySetter> entry : columnIndex.entrySet()) {
-                try {
-                    Cell cell = row.getCell(entry.getKey());
-                    if (null == cell) {
+        }
+        return false;
+    }
+
+    /*
+     * The page of data rows returned by a read. Rows are counted across
+     * the sheets read, after empty rows, filtered rows and the caption
+     * rows are excluded
+     */
+    private class Page {
+        // the number of data rows to skip
+        int skip = skipRows;
+        // the number of data rows to return
+        int remaining = limit;
+
+        boolean isFull() {
+            return remaining <= 0;
+        }
+    }
+
+    private ForkJoinPool forkJoinPool() {
+        if (executor instanceof ForkJoinPool) {
+            return (ForkJoinPool) executor;
+        }
+        return ForkJoinPoolHolder.POOL;
+    }
+
+    private static class ForkJoinPoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /*
+     * Stop reading if the reading thread is interrupted, e.g. the
+     * future returned by `readAsync` is cancelled. The scanner is
+     * closed by the caller when the exception is thrown out
+     */
+    private static void checkInterrupted(SheetScanner scanner) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new ExcelReadException("Interrupted while reading sheet[%s]", scanner.sheetName());
+        }
+    }
+
+    /*
+     * The default executor of async reads. Virtual threads are used if the
+     * runtime supports them, otherwise a bounded pool of daemon threads
+     */
+    private static class AsyncExecutorHolder {
+        static final Executor EXECUTOR = create();
+
+        private static Executor create() {
+            try {
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) method.invoke(null);
+            } catch (NoSuchMethodException e) {
+                // virtual threads not available
+            } catch (Exception e) {
+                // e.g. virtual threads are preview feature not enabled
+                LOGGER.debug(e, "error creating virtual thread executor");
+            }
+            int size = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger seq = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "osgl-excel-async-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /*
+     * Read the data rows of the current sheet on the calling thread and bind
+     * them in chunks of `rowChunkSize` rows concurrently with fork/join.
+     *
+     * Only the calling thread accesses the scanner, as POI objects are not
+     * thread safe. Reading stops at the terminator, thus no rows after it
+     * are bound
+     */
+    private <TYPE> void readInChunks(List<TYPE> dataList, RowBinder<TYPE> binder) {
+        ForkJoinPool pool = forkJoinPool();
+        List<ForkJoinTask<RowChunk<TYPE>>> tasks = new ArrayList<>();
+        try {
+            List<RowValues> values = new ArrayList<>(rowChunkSize);
+            RowValues row;
+            while (null != (row = binder.readValues())) {
+                values.add(row);
+                if (values.size() == rowChunkSize) {
+                    tasks.add(pool.submit(new RowChunkTask<>(binder, values)));
+                    values = new ArrayList<>(rowChunkSize);
+                }
+            }
+            if (!values.isEmpty()) {
+                tasks.add(pool.submit(new RowChunkTask<>(binder, values)));
+            }
+            for (ForkJoinTask<RowChunk<TYPE>> task : tasks) {
+                RowChunk<TYPE> chunk = task.join();
+                if (null != chunk.error) {
+                    throw chunk.error;
+                }
+                dataList.addAll(chunk.rows);
+                binder.rows += chunk.rows.size();
+                binder.cells += chunk.cells;
+            }
+        } finally {
+            for (ForkJoinTask<RowChunk<TYPE>> task : tasks) {
+                task.cancel(false);
+            }
+        }
+        binder.endSheet();
+    }
+
+    /*
+     * The cell values of a data row in binding plan order. Numbers to be set
+     * through typed setters are kept in `numbers`, `NaN` if the cell is bound
+     * with its value in `values`
+     */
+    private static class RowValues {
+        final int rowNum;
+        final Object[] values;
+        final double[] numbers;
+
+        RowValues(int rowNum, Object[] values, double[] numbers) {
+            this.rowNum = rowNum;
+            this.values = values;
+            this.numbers = numbers;
+        }
+    }
+
+    /*
+     * Rows bound from a chunk of a sheet
+     */
+    private static class RowChunk<TYPE> {
+        List<TYPE> rows = new ArrayList<>();
+        long cells;
+        // error stopped binding
+        RuntimeException error;
+    }
+
+    /*
+     * Bind a chunk of rows read from a sheet
+     */
+    private static class RowChunkTask<TYPE> extends RecursiveTask<RowChunk<TYPE>> {
+
+        private final RowBinder<TYPE> binder;
+        private final List<RowValues> rows;
+
+        RowChunkTask(RowBinder<TYPE> binder, List<RowValues> rows) {
+            this.binder = binder;
+            this.rows = rows;
+        }
+
+        @Override
+        protected RowChunk<TYPE> compute() {
+            RowChunk<TYPE> chunk = new RowChunk<>();
+            try {
+                for (RowValues row : rows) {
+                    chunk.rows.add(binder.bind(row, chunk));
+                }
+            } catch (RuntimeException e) {
+                chunk.error = e;
+            }
+            return chunk;
+        }
+    }
+
+    /**
+     * Returns a publisher that reads rows into {@link Map maps} on demand.
+     *
+     * @return the row publisher
+     * @see #publisher(Class, Executor)
+     */
+    public RowPublisher<Map<String, Object>> publisher() {
+        return (RowPublisher) publisher(Map.class);
+    }
+
+    /**
+     * Returns a publisher that reads rows into instances of `schema` type
+     * on demand. Rows are delivered in the thread requesting them.
+     *
+     * @param schema
+     *         specify the POJO object type
+     * @return the row publisher
+     * @see #publisher(Class, Executor)
+     */
+    public <TYPE> RowPublisher<TYPE> publisher(Class<? extends TYPE> schema) {
+        return new RowPublisher<>(this, schema, null);
+    }
+
+    /**
+     * Returns a publisher that reads rows into instances of `schema` type
+     * on demand. A subscriber receives no more rows than it has requested,
+     * and rows are not read ahead of the demand. Cancelling the subscription
+     * closes the Excel source.
+     *
+     * This works best with streaming mode, where memory used does not grow
+     * with the number of rows.
+     *
+     * @param schema
+     *         specify the POJO object type
+     * @param executor
+     *         the executor in which rows are read and delivered
+     * @return the row publisher
+     */
+    public <TYPE> RowPublisher<TYPE> publisher(Class<? extends TYPE> schema, Executor executor) {
+        return new RowPublisher<>(this, schema, $.requireNotNull(executor));
+    }
+
+    /**
+     * Returns an iterator that reads rows lazily into {@link Map maps}.
+     *
+     * @return the row iterator
+     * @see #iterator(Class)
+     */
+    public RowIterator<Map<String, Object>> iterator() {
+        return (RowIterator) iterator(Map.class);
+    }
+
+    /**
+     * Returns an iterator that reads rows lazily into instances of `schema` type.
+     *
+     * Rows are read from the selected sheets only when the iterator is
+     * advanced. The underline workbook is released when the iterator is
+     * exhausted or {@link RowIterator#close() closed}, thus the caller
+     * shall close the iterator if it is not iterated to the end.
+     *
+     * @param schema
+     *         specify the POJO object type
+     * @return the row iterator
+     */
+    public <TYPE> RowIterator<TYPE> iterator(Class<? extends TYPE> schema) {
+        final SheetScanner scanner = openScanner();
+        try {
+            Map<String, PropertySetter> setterMap = processSchemaMapping(schema);
+            if (setterMap.isEmpty() && tolerantLevel.isStrict()) {
+                throw new ExcelReadException("No schema mapping found in strict mode");
+            }
+            return new RowIterator<>(new RowBinder<TYPE>(scanner, setterMap, schema, new Page()));
+        } catch (RuntimeException e) {
+            endRead(scanner);
+            throw e;
+        }
+    }
+
+    /**
+     * Iterates the rows of selected sheets lazily.
+     *
+     * The iterator is {@link Closeable}, closing it releases the underline workbook.
+     *
+     * @param <T> the row data type
+     */
+    public class RowIterator<T> implements Iterator<T>, Closeable {
+
+        private final RowBinder<T> binder;
+        private boolean inSheet;
+        private boolean closed;
+        private T next;
+
+        private RowIterator(RowBinder<T> binder) {
+            this.binder = binder;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (null != next) {
+                return true;
+            }
+            if (closed) {
+                return false;
+            }
+            try {
+                next = fetch();
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            if (null == next) {
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T data = next;
+            next = null;
+            return data;
+        }
+
+        @Override
+        public void remove() {
+            throw E.unsupport();
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                endRead(binder.scanner);
+            }
+        }
+
+        private T fetch() {
+            SheetScanner scanner = binder.scanner;
+            while (true) {
+                if (inSheet) {
+                    T data = binder.next();
+                    if (null != data) {
+                        return data;
+                    }
+                    inSheet = false;
+                }
+                if (!scanner.nextSheet()) {
+                    return null;
+                }
+                if (scanner.isSelected(sheetSelector)) {
+                    inSheet = binder.startSheet();
+                }
+            }
+        }
+    }
+
+    /*
+     * Binds the rows of the current sheet of a scanner into entities
+     */
+    private class RowBinder<TYPE> {
+
+        private final SheetScanner scanner;
+        private final Map<String, PropertySetter> setterMap;
+        private final Class<? extends TYPE> schema;
+        private final boolean schemaIsMap;
+        private ColumnBindingPlan plan;
+        private RowFilter filter;
+        private boolean terminated;
+        private final Page page;
+        // counters of the current sheet reported to the listener
+        private int rows;
+        private long cells;
+        private int emptyRows;
+        private boolean reported;
+
+        RowBinder(SheetScanner scanner, Map<String, PropertySetter> setterMap, Class<? extends TYPE> schema, Page page) {
+            this.scanner = scanner;
+            this.page = page;
+            this.setterMap = setterMap;
+            this.schema = schema;
+            this.schemaIsMap = Map.class.isAssignableFrom(schema);
+        }
+
+        /*
+         * Notify the listener the rows of the current sheet have been read
+         */
+        void endSheet() {
+            if (!reported) {
+                reported = true;
+                sheetRead(scanner, rows, cells, emptyRows);
+            }
+        }
+
+        /*
+         * Build column binding plan for the current sheet.
+         *
+         * Returns `false` if there is nothing to read from the sheet
+         */
+        boolean startSheet() {
+            terminated = false;
+            reported = false;
+            rows = 0;
+            cells = 0;
+            emptyRows = 0;
+            if (page.isFull()) {
+                return false;
+            }
+            plan = ColumnBindingPlan.of(resolveHeader(scanner, setterMap, schemaIsMap));
+            // missing caption row has been reported in tolerant modes
+            if (plan.size() < setterMap.size() && (!plan.isEmpty() || tolerantLevel.isStrict())) {
+                scanner.columnIndexMapNotFullyBuilt();
+            }
+            if (plan.isEmpty()) {
+                return false;
+            }
+            filter = rowFilter(scanner);
+            scanner.project(projection(plan, filter));
+            return true;
+        }
+
+        /*
+         * Returns the next entity or `null` if reached the end of the sheet
+         * or the terminator
+         */
+        TYPE next() {
+            TYPE data = bindNext();
+            if (null == data) {
+                endSheet();
+            } else {
+                rows++;
+                page.remaining--;
+            }
+            return data;
+        }
+
+        private TYPE bindNext() {
+            if (terminated || page.isFull()) {
+                return null;
+            }
+            while (scanner.nextRow()) {
+                checkInterrupted(scanner);
+                if (null != filter && !filter.test(scanner)) {
+                    if (isTerminatorRow(scanner, plan)) {
+                        terminated = true;
+                        return null;
+                    }
+                    continue;
+                }
+                if (page.skip > 0) {
+                    if (isDataRow()) {
+                        page.skip--;
+                    } else if (terminated) {
+                        return null;
+                    }
+                    continue;
+                }
+                Object entity = schemaIsMap ? new LinkedHashMap<>() : $.newInstance(schema);
+                boolean isEmptyRow = true;
+                for (int i = 0, size = plan.size(); i < size; ++i) {
+                    int column = plan.column(i);
+                    if (ColumnBindingPlan.READ_OBJECT != plan.reader(i) && bindNumber(entity, i, column)) {
+                        isEmptyRow = false;
+                        cells++;
                         continue;
                     }
+                    Object value = scanner.cellValue(column);
+                    if (null == value) {
+                        continue;
+                    }
+                    if (null != terminator && terminator.equals(value)) {
+                        terminated = true;
+                        return null;
+                    }
+                    isEmptyRow = false;
+                    cells++;
                     try {
-                        Object value = readCellValue(cell, tolerantLevel);
-                        if (null != value) {
-                            if (null != terminator && terminator.equals(value)) {
-                                break TERMINATED;
-                            }
+                        plan.setter(i).set(entity, value, null);
+                    } catch (Exception e) {
+                        scanner.errorSettingCellValueToPojo(e, column, value, schema);
+                    }
+                }
+                if (isEmptyRow && ignoreEmptyRows) {
+                    emptyRows++;
+                    continue;
+                }
+                return $.cast(entity);
+            }
+            return null;
+        }
+
+        /*
+         * Returns the cell values of the next data row, or `null` if reached
+         * the end of the sheet or the terminator. The values are bound later
+         * with `bind`, possibly by another thread
+         */
+        RowValues readValues() {
+            if (terminated || page.isFull()) {
+                return null;
+            }
+            while (scanner.nextRow()) {
+                checkInterrupted(scanner);
+                if (null != filter && !filter.test(scanner)) {
+                    if (isTerminatorRow(scanner, plan)) {
+                        terminated = true;
+                        return null;
+                    }
+                    continue;
+                }
+                if (page.skip > 0) {
+                    if (isDataRow()) {
+                        page.skip--;
+                    } else if (terminated) {
+                        return null;
+                    }
+                    continue;
+                }
+                int size = plan.size();
+                Object[] values = new Object[size];
+                double[] numbers = new double[size];
+                boolean isEmptyRow = true;
+                for (int i = 0; i < size; ++i) {
+                    int column = plan.column(i);
+                    numbers[i] = Double.NaN;
+                    if (ColumnBindingPlan.READ_OBJECT != plan.reader(i)) {
+                        double n = scanner.readDouble(column);
+                        if (fitsReader(plan.reader(i), n)) {
+                            numbers[i] = n;
                             isEmptyRow = false;
-                            try {
-                                entry.getValue().set(entity, value, null);
-                            } catch (Exception e) {
-                                tolerantLevel.errorSettingCellValueToPojo(e, cell, value, schema);
-                            }
+                            continue;
                         }
+                    }
+                    Object value = scanner.cellValue(column);
+                    if (null == value) {
+                        continue;
+                    }
+                    if (null != terminator && terminator.equals(value)) {
+                        terminated = true;
+                        return null;
+                    }
+                    isEmptyRow = false;
+                    values[i] = value;
+                }
+                if (isEmptyRow && ignoreEmptyRows) {
+                    emptyRows++;
+                    continue;
+                }
+                page.remaining--;
+                return new RowValues(scanner.rowNum(), values, numbers);
+            }
+            return null;
+        }
+
+        /*
+         * Check if the current row is a data row without binding it. Sets
+         * `terminated` if the terminator is found in the row
+         */
+        private boolean isDataRow() {
+            boolean isEmptyRow = true;
+            for (int i = 0, size = plan.size(); i < size; ++i) {
+                int column = plan.column(i);
+                if (ColumnBindingPlan.READ_OBJECT != plan.reader(i) && !Double.isNaN(scanner.readDouble(column))) {
+                    isEmptyRow = false;
+                    continue;
+                }
+                Object value = scanner.cellValue(column);
+                if (null == value) {
+                    continue;
+                }
+                if (null != terminator && terminator.equals(value)) {
+                    terminated = true;
+                    return false;
+                }
+                isEmptyRow = false;
+            }
+            if (isEmptyRow && ignoreEmptyRows) {
+                emptyRows++;
+                return false;
+            }
+            return true;
+        }
+
+        /*
+         * Bind the cell values of a row into an entity. It is called by
+         * multiple threads, thus shall not access the scanner other than
+         * reporting errors
+         */
+        TYPE bind(RowValues row, RowChunk<TYPE> chunk) {
+            Object entity = schemaIsMap ? new LinkedHashMap<>() : $.newInstance(schema);
+            Object[] values = row.values;
+            for (int i = 0; i < values.length; ++i) {
+                double n = row.numbers[i];
+                if (!Double.isNaN(n)) {
+                    chunk.cells++;
+                    try {
+                        setNumber(entity, i, n);
                     } catch (Exception e) {
-                        tolerantLevel.onReadCellException(e, cell);
+                        scanner.errorSettingCellValueToPojo(e, row.rowNum, plan.column(i), n, schema);
                     }
+                    continue;
+                }
+                Object value = values[i];
+                if (null == value) {
+                    continue;
+                }
+                chunk.cells++;
+                try {
+                    plan.setter(i).set(entity, value, null);
                 } catch (Exception e) {
-                    tolerantLevel.onReadCellException(e, sheet, row, entry.getKey());
+                    scanner.errorSettingCellValueToPojo(e, row.rowNum, plan.column(i), value, schema);
                 }
             }
-            if (isEmptyRow && ignoreEmptyRows) {
-                continue;
+            return $.cast(entity);
+        }
+
+        /*
+         * Set numeric cell into `int`, `long` or `double` property without boxing.
+         *
+         * Returns `false` if the cell is not a plain number or does not fit into the
+         * property, in which case the cell shall be bound through `cellValue`
+         */
+        private boolean bindNumber(Object entity, int i, int column) {
+            double n = scanner.readDouble(column);
+            if (!fitsReader(plan.reader(i), n)) {
+                return false;
+            }
+            try {
+                setNumber(entity, i, n);
+            } catch (Exception e) {
+                scanner.errorSettingCellValueToPojo(e, column, n, schema);
+            }
+            return true;
+        }
+
+        /*
+         * Set a number checked by `fitsReader` through the typed setter of binding `i`
+         */
+        private void setNumber(Object entity, int i, double n) {
+            switch (plan.reader(i)) {
+                case ColumnBindingPlan.READ_INT:
+                    ((CompiledPropertySetter.IntSetter) plan.setter(i)).setInt(entity, (int) n);
+                    break;
+                case ColumnBindingPlan.READ_LONG:
+                    ((CompiledPropertySetter.LongSetter) plan.setter(i)).setLong(entity, (long) n);
+                    break;
+                default:
+                    ((CompiledPropertySetter.DoubleSetter) plan.setter(i)).setDouble(entity, n);
+            }
+        }
+
+        /*
+         * Check if a number returned by `readDouble` can be set through the
+         * typed setter of `reader` without losing precision
+         */
+        private boolean fitsReader(byte reader, double n) {
+            if (Double.isNaN(n)) {
+                return false;
+            }
+            switch (reader) {
+                case ColumnBindingPlan.READ_INT:
+                    return (int) n == n;
+                case ColumnBindingPlan.READ_LONG:
+                    return (long) n == n;
+                case ColumnBindingPlan.READ_DOUBLE:
+                    return true;
+                default:
+                    return false;
             }
-            TYPE data = $.cast(entity);
-            dataList.add(data);
         }
     }
 
@@ -321,63 +1658,224 @@ public class ExcelReader {
         }
     }
 
-    private Map<Integer, PropertySetter> buildColumnIndex(Sheet sheet, Map<String, PropertySetter> setterMap, boolean schemaIsMap, $.Var<Integer> headerRowHolder) {
-        int startRow = sheet.getFirstRowNum();
-        int maxRow = sheet.getLastRowNum();
+    /*
+     * Build the column index and notify the listener of the time taken
+     */
+    private Map<Integer, PropertySetter> resolveHeader(SheetScanner scanner, Map<String, PropertySetter> setterMap, boolean schemaIsMap) {
+        if (null == listener) {
+            return buildColumnIndex(scanner, setterMap, schemaIsMap);
+        }
+        long start = System.nanoTime();
+        Map<Integer, PropertySetter> index = buildColumnIndex(scanner, setterMap, schemaIsMap);
+        listener.onHeaderResolved(scanner.sheetName(), scanner.rowNum(), System.nanoTime() - start);
+        return index;
+    }
+
+    private Map<Integer, PropertySetter> buildColumnIndex(SheetScanner scanner, Map<String, PropertySetter> setterMap, boolean schemaIsMap) {
+        int startRow = scanner.firstRowNum();
+        int maxRow = scanner.lastRowNum();
         int headerRow = this.headerRow;
-        if (headerRow < startRow || headerRow >= maxRow) {
-            tolerantLevel.headerRowOutOfScope(sheet);
+        if (maxRow < 0) {
+            // sheet dimension unknown, probe till the end of the sheet
+            maxRow = Integer.MAX_VALUE;
+        } else if (headerRow < startRow || headerRow >= maxRow) {
+            scanner.headerRowOutOfScope(headerRow);
             headerRow = startRow;
         }
-        if (tolerantLevel.isStrict()) {
-            return buildColumnIndex(sheet.getRow(headerRow), setterMap, schemaIsMap);
-        }
         Map<Integer, PropertySetter> index = C.Map();
-        for (int rowId = headerRow; rowId < maxRow; ++rowId) {
-            index = buildColumnIndex(sheet.getRow(rowId), setterMap, schemaIsMap);
-            if (!index.isEmpty()) {
-                headerRowHolder.set(rowId);
+        // the number of matched columns required to accept a row as header row
+        int required = Math.max(1, (int) Math.ceil(headerMinScore * distinctSetters(setterMap)));
+        int probeLimit = headerProbeRows > Integer.MAX_VALUE - headerRow ? Integer.MAX_VALUE : headerRow + headerProbeRows;
+        int probed = 0;
+        int bestRow = -1;
+        int bestMatched = 0;
+        boolean windowExhausted = false;
+        while (scanner.nextRow()) {
+            checkInterrupted(scanner);
+            int rowId = scanner.rowNum();
+            if (rowId < headerRow) {
+                continue;
+            }
+            if (tolerantLevel.isStrict()) {
+                return rowId == headerRow ? buildColumnIndex(scanner.headerCells(), setterMap, schemaIsMap) : index;
+            }
+            if (rowId >= maxRow) {
+                break;
+            }
+            if (rowId >= probeLimit) {
+                windowExhausted = true;
+                break;
+            }
+            probed++;
+            index = buildColumnIndex(scanner.headerCells(), setterMap, schemaIsMap);
+            int matched = index.size();
+            if (matched >= required) {
                 return index;
             }
+            if (matched > bestMatched) {
+                bestMatched = matched;
+                bestRow = rowId;
+            }
         }
-        return index;
+        if (!tolerantLevel.isStrict()) {
+            String reason;
+            if (0 == probed) {
+                reason = S.fmt("no row found from row %s", headerRow + 1);
+            } else if (0 == bestMatched) {
+                reason = S.fmt("none of the %s probed rows from row %s matches a mapped column", probed, headerRow + 1);
+            } else {
+                reason = S.fmt("best candidate row %s matches %s columns, %s required", bestRow + 1, bestMatched, required);
+            }
+            if (windowExhausted) {
+                reason += S.fmt(", probe window of %s rows exhausted", headerProbeRows);
+            }
+            scanner.headerRowNotFound(reason);
+        }
+        return C.Map();
+    }
+
+    private static int distinctSetters(Map<String, PropertySetter> setterMap) {
+        Set<PropertySetter> setters = Collections.newSetFromMap(new IdentityHashMap<PropertySetter, Boolean>());
+        setters.addAll(setterMap.values());
+        return setters.size();
     }
 
-    private Map<Integer, PropertySetter> buildColumnIndex(Row row, Map<String, PropertySetter> setterMap, boolean schemaIsMap) {
+    private Map<Integer, PropertySetter> buildColumnIndex(Map<Integer, String> headerCells, Map<String, PropertySetter> setterMap, boolean schemaIsMap) {
         Map<Integer, PropertySetter> retVal = new HashMap<>();
-        for (Cell cell : row) {
-            try {
-                String header = cell.getStringCellValue();
-                if (S.blank(header)) {
-                    continue;
-                }
-                header = header.trim();
-                PropertySetter setter = null;
-                String translated = headerMapping.get(header.toLowerCase());
-                if (null != translated) {
-                    setter = setterMap.get(translated);
-                }
-                if (null == setter) {
-                    String key = headerTransformer.apply(header);
-                    setter = setterMap.get(key);
-                }
-                if (null != setter) {
-                    retVal.put(cell.getColumnIndex(), setter);
-                } else if (tolerantLevel.isAggressiveReading() && schemaIsMap) {
-                    retVal.put(cell.getColumnIndex(), new MapSetter(headerTransformer.apply(header)));
-                }
-            } catch (Exception e) {
-                LOGGER.debug(e, "error reading cell value:" + cell);
+        for (Map.Entry<Integer, String> entry : headerCells.entrySet()) {
+            String header = entry.getValue().trim();
+            PropertySetter setter = null;
+            String translated = headerMapping.get(header.toLowerCase());
+            if (null != translated) {
+                setter = setterMap.get(translated);
+            }
+            if (null == setter) {
+                String key = headerTransformer.apply(header);
+                setter = setterMap.get(key);
+            }
+            if (null != setter) {
+                retVal.put(entry.getKey(), setter);
+            } else if (tolerantLevel.isAggressiveReading() && schemaIsMap) {
+                retVal.put(entry.getKey(), new MapSetter(headerTransformer.apply(header)));
             }
         }
         return retVal;
     }
 
+    private SheetScanner openScanner() {
+        return openScanner(sheetSelector);
+    }
+
+    /*
+     * Open a scanner that scans only the sheets selected. A selector created
+     * with `SheetSelector` is pushed down to the scanner, so that the streaming
+     * scanner does not open the parts of the sheets not selected, and the
+     * workbook scanner skips them by name and index
+     */
+    private SheetScanner openScanner($.Predicate<Sheet> selector) {
+        SheetScanner scanner = instrument(streaming
+                ? openStreamingScanner()
+                : new WorkbookSheetScanner(loadWorkbook(), tolerantLevel));
+        if (selector instanceof SheetSelector.SheetPredicate && SheetSelector.ALL != selector) {
+            scanner.select((SheetSelector.SheetPredicate) selector);
+        }
+        return scanner;
+    }
+
+    private SheetScanner instrument(SheetScanner scanner) {
+        scanner.errorSink(errorSink);
+        scanner.listener(listener);
+        scanner.errorCount(errorCount);
+        return scanner;
+    }
+
+    /*
+     * Stop reading if the reading thread is interrupted while the workbook is
+     * loaded or spooled, which POI does not check
+     */
+    private static <T extends Closeable> T interruptible(T opened) {
+        if (Thread.currentThread().isInterrupted()) {
+            IO.close(opened);
+            throw new ExcelReadException("Interrupted while opening the workbook");
+        }
+        return opened;
+    }
+
+    /*
+     * Release the scanner of a read. The errors tolerated by the read are
+     * summarized by the error sink if it is a `ReadReport`
+     */
+    private void endRead(SheetScanner scanner) {
+        IO.close(scanner);
+        if (errorSink instanceof ReadReport) {
+            ((ReadReport) errorSink).readEnded();
+        }
+    }
+
+    /*
+     * Notify the listener that the workbook is opened
+     */
+    private void opened(long start) {
+        if (null != listener) {
+            long bytes = -1;
+            if (inputStreamProvider instanceof FileSource) {
+                bytes = ((FileSource) inputStreamProvider).file.length();
+            } else if (inputStreamProvider instanceof SpooledSource) {
+                bytes = ((SpooledSource) inputStreamProvider).size();
+            }
+            listener.onWorkbookOpened(bytes, System.nanoTime() - start);
+        }
+    }
+
+    private SheetScanner openStreamingScanner() {
+        return openStreamingScanner(false);
+    }
+
+    /*
+     * Open a streaming scanner. The listener is not notified when `reopen`
+     * is `true`, i.e. the workbook has been opened by the same read, so that
+     * a workbook is counted once per read
+     */
+    private SheetScanner openStreamingScanner(boolean reopen) {
+        long now = LOGGER.isTraceEnabled() ? $.ms() : 0;
+        long start = null == listener ? 0 : System.nanoTime();
+        File file = sourceFile();
+        try {
+            SheetScanner scanner;
+            if (null != file) {
+                scanner = isXlsx ? new XlsxSheetScanner(file, false, tolerantLevel) : new XlsSheetScanner(new POIFSFileSystem(file, true), tolerantLevel);
+            } else {
+                InputStream is = inputStreamProvider.apply();
+                scanner = isXlsx ? new XlsxSheetScanner(is, tolerantLevel) : new XlsSheetScanner(is, tolerantLevel);
+            }
+            if (!reopen) {
+                opened(start);
+            }
+            return interruptible(scanner);
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } finally {
+            if (LOGGER.isTraceEnabled()) {
+                long time = $.ms() - now;
+                LOGGER.trace("it takes %sms to open the workbook package", time);
+            }
+        }
+    }
+
     private Workbook loadWorkbook() {
         long now = LOGGER.isTraceEnabled() ? $.ms() : 0;
-        InputStream is = inputStreamProvider.apply();
+        long start = null == listener ? 0 : System.nanoTime();
+        File file = sourceFile();
         try {
-            return isXlsx ? new XSSFWorkbook(is) : new HSSFWorkbook(is);
+            Workbook workbook;
+            if (null != file) {
+                workbook = isXlsx ? openXlsx(file) : new HSSFWorkbook(new POIFSFileSystem(file, true));
+            } else {
+                InputStream is = inputStreamProvider.apply();
+                workbook = isXlsx ? new XSSFWorkbook(is) : new HSSFWorkbook(is);
+            }
+            opened(start);
+            return interruptible(workbook);
         } catch (IOException e) {
             throw E.ioException(e);
         } finally {
@@ -388,6 +1886,71 @@ public class ExcelReader {
         }
     }
 
+    private static Workbook openXlsx(File file) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException(e);
+        }
+        try {
+            return new XSSFWorkbook(pkg);
+        } catch (IOException | RuntimeException e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    /*
+     * Returns the file the workbook is read from, or `null` if
+     * the workbook is read from other source
+     */
+    private File sourceFile() {
+        return inputStreamProvider instanceof FileSource ? ((FileSource) inputStreamProvider).file : null;
+    }
+
+    /*
+     * Input stream provider that loads the content of another provider into
+     * memory on first use, so that the content can be read more than once
+     */
+    private static class SpooledSource extends $.F0<InputStream> {
+        private final $.Func0<InputStream> source;
+        private byte[] content;
+
+        SpooledSource($.Func0<InputStream> source) {
+            this.source = source;
+        }
+
+        @Override
+        public synchronized InputStream apply() throws NotAppliedException, $.Break {
+            if (null == content) {
+                content = IO.readContent(source.apply());
+            }
+            return new ByteArrayInputStream(content);
+        }
+
+        synchronized long size() {
+            return null == content ? -1 : content.length;
+        }
+    }
+
+    /*
+     * Input stream provider of a local file. The file is opened with
+     * random access instead of the input stream when reading the workbook
+     */
+    private static class FileSource extends $.F0<InputStream> {
+        private final File file;
+
+        FileSource(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public InputStream apply() throws NotAppliedException, $.Break {
+            return new BufferedInputStream(IO.inputStream(file));
+        }
+    }
+
     public enum TolerantLevel {
         STRICT, TOLERANT, AGGRESSIVE_READ;
 
@@ -404,7 +1967,11 @@ public class ExcelReader {
         }
 
         public void headerRowOutOfScope(Sheet sheet) {
-            String message = S.fmt("caption row out of scope in sheet[%s] !", sheet.getSheetName());
+            headerRowOutOfScope(sheet.getSheetName());
+        }
+
+        public void headerRowOutOfScope(String sheetName) {
+            String message = S.fmt("caption row out of scope in sheet[%s] !", sheetName);
             if (isStrict()) {
                 throw new ExcelReadException(message);
             }
@@ -412,7 +1979,19 @@ public class ExcelReader {
         }
 
         public void columnIndexMapNotFullyBuilt(Sheet sheet) {
-            String message = S.fmt("column index not fully built on sheet: " + sheet.getSheetName());
+            columnIndexMapNotFullyBuilt(sheet.getSheetName());
+        }
+
+        public void headerRowNotFound(String sheetName, String reason) {
+            String message = S.fmt("caption row not found in sheet[%s]: %s", sheetName, reason);
+            if (isStrict()) {
+                throw new ExcelReadException(message);
+            }
+            LOGGER.warn(message);
+        }
+
+        public void columnIndexMapNotFullyBuilt(String sheetName) {
+            String message = S.fmt("column index not fully built on sheet: " + sheetName);
             if (isStrict()) {
                 throw new ExcelReadException(message);
             }
@@ -428,33 +2007,47 @@ public class ExcelReader {
         }
 
         public void onReadCellException(Exception e, Cell cell) {
-            String errorMessage = S.fmt("Error reading cell value: %s@[%s]", cell.getAddress(), cell.getSheet().getSheetName());
+            onReadCellException(e, cell.getSheet().getSheetName(), cell.getRowIndex(), cell.getColumnIndex());
+        }
+
+        public void onReadCellException(Exception e, String sheetName, int rowIndex, int columnIndex) {
             if (isStrict()) {
-                throw new ExcelReadException(e, errorMessage);
+                throw new ExcelReadException(e, "Error reading cell value: %s@[%s]", new CellAddress(rowIndex, columnIndex), sheetName);
             }
-            LOGGER.warn(e, errorMessage);
+            LOGGER.warn(e, "Error reading cell value: %s@[%s]", new CellAddress(rowIndex, columnIndex), sheetName);
         }
 
         public Object readErrorCell(Cell cell) {
+            return readErrorCell(cell.getRow().getSheet().getSheetName(), cell.getRowIndex(), cell.getColumnIndex());
+        }
+
+        public Object readErrorCell(String sheetName, int rowIndex, int columnIndex) {
             if (isStrict()) {
-                throw new ExcelReadException("Error cell value encountered: %s@[%s]", cell.getAddress(), cell.getRow().getSheet().getSheetName());
+                throw new ExcelReadException("Error cell value encountered: %s@[%s]", new CellAddress(rowIndex, columnIndex), sheetName);
             }
             return null;
         }
 
         public Object readUnknownCellType(Cell cell) {
+            return readUnknownCellType(cell.getRow().getSheet().getSheetName(), cell.getRowIndex(), cell.getColumnIndex());
+        }
+
+        public Object readUnknownCellType(String sheetName, int rowIndex, int columnIndex) {
             if (isStrict()) {
-                throw new ExcelReadException("Unknown cell type encountered: %s@[%s]", cell.getAddress(), cell.getRow().getSheet().getSheetName());
+                throw new ExcelReadException("Unknown cell type encountered: %s@[%s]", new CellAddress(rowIndex, columnIndex), sheetName);
             }
             return null;
         }
 
         public void errorSettingCellValueToPojo(Exception e, Cell cell, Object value, Class<?> schema) {
-            String errorMessage = S.fmt("failed to set cell value[%s] to POJO[%s]: %s@[%s]", value, schema, cell.getAddress(), cell.getRow().getSheet().getSheetName());
+            errorSettingCellValueToPojo(e, cell.getRow().getSheet().getSheetName(), cell.getRowIndex(), cell.getColumnIndex(), value, schema);
+        }
+
+        public void errorSettingCellValueToPojo(Exception e, String sheetName, int rowIndex, int columnIndex, Object value, Class<?> schema) {
             if (isStrict()) {
-                throw new ExcelReadException(e, errorMessage);
+                throw new ExcelReadException(e, "failed to set cell value[%s] to POJO[%s]: %s@[%s]", value, schema, new CellAddress(rowIndex, columnIndex), sheetName);
             }
-            LOGGER.warn(e, errorMessage);
+            LOGGER.warn(e, "failed to set cell value[%s] to POJO[%s]: %s@[%s]", value, schema, new CellAddress(rowIndex, columnIndex), sheetName);
         }
     }
 
@@ -720,6 +2313,15 @@ public class ExcelReader {
         return builder().sobject(sobj).headerMapping(headerMapping).build().read(schema);
     }
 
+    /**
+     * Read a batch of Excel files with the same layout using default configuration.
+     *
+     * @see Builder#readAll(Collection, Class, int, long)
+     */
+    public static <T> BatchResult<T> readAll(Collection<File> files, Class<T> schema, int parallelism) {
+        return builder().readAll(files, schema, parallelism);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -772,6 +2374,19 @@ public class ExcelReader {
         private $.Function<String, String> headerTransformer = HeaderTransformStrategy.TO_JAVA_NAME;
         private TolerantLevel tolerantLevel = TolerantLevel.AGGRESSIVE_READ;
         private String terminator;
+        private boolean streaming;
+        private int parallelism = 1;
+        private Executor executor;
+        private int rowChunkSize;
+        private int headerProbeRows = Integer.MAX_VALUE;
+        private double headerMinScore;
+        private int skipRows;
+        private int limit = Integer.MAX_VALUE;
+        private List<String> filterHeaders = new ArrayList<>();
+        private List<$.Function<Object, Boolean>> filterConditions = new ArrayList<>();
+        private ReadCache cache;
+        private ErrorSink errorSink;
+        private ReadListener listener;
 
         public Builder() {
         }
@@ -789,6 +2404,34 @@ public class ExcelReader {
             this.tolerantLevel = $.requireNotNull(tolerantLevel);
         }
 
+        /*
+         * Copy the configuration of another builder
+         */
+        private Builder(Builder other) {
+            inputStreamProvider = other.inputStreamProvider;
+            sheetSelector = other.sheetSelector;
+            headerMapping = new HashMap<>(other.headerMapping);
+            isXlsx = other.isXlsx;
+            headerRow = other.headerRow;
+            ignoreEmptyRows = other.ignoreEmptyRows;
+            headerTransformer = other.headerTransformer;
+            tolerantLevel = other.tolerantLevel;
+            terminator = other.terminator;
+            streaming = other.streaming;
+            parallelism = other.parallelism;
+            executor = other.executor;
+            rowChunkSize = other.rowChunkSize;
+            headerProbeRows = other.headerProbeRows;
+            headerMinScore = other.headerMinScore;
+            skipRows = other.skipRows;
+            limit = other.limit;
+            filterHeaders = new ArrayList<>(other.filterHeaders);
+            filterConditions = new ArrayList<>(other.filterConditions);
+            cache = other.cache;
+            errorSink = other.errorSink;
+            listener = other.listener;
+        }
+
         public Builder resource(String path) {
             URL url = ExcelReader.class.getResource(path);
             if (null == url) {
@@ -837,12 +2480,7 @@ public class ExcelReader {
                 return inputStream(pushbackInputStream(IO.inputStream(new File(path))));
             }
             this.isXlsx = isXlsx;
-            inputStreamProvider = new $.F0<InputStream>() {
-                @Override
-                public InputStream apply() throws NotAppliedException, $.Break {
-                    return new BufferedInputStream(IO.inputStream(new File(path)));
-                }
-            };
+            inputStreamProvider = new FileSource(new File(path));
             return this;
         }
 
@@ -858,12 +2496,7 @@ public class ExcelReader {
                 return inputStream(pushbackInputStream(IO.inputStream(file)));
             }
             this.isXlsx = isXlsx;
-            inputStreamProvider = new $.F0<InputStream>() {
-                @Override
-                public InputStream apply() throws NotAppliedException, $.Break {
-                    return new BufferedInputStream(IO.inputStream(file));
-                }
-            };
+            inputStreamProvider = new FileSource(file);
             return this;
         }
 
@@ -998,6 +2631,91 @@ public class ExcelReader {
             return this;
         }
 
+        /**
+         * Set the max number of rows to probe for the caption row, starting from
+         * the {@link #headerRow(int) header row}.
+         *
+         * This applies to tolerant modes only. In strict mode the caption row must
+         * be the header row.
+         *
+         * @param rows the max number of rows to probe
+         * @return this builder
+         */
+        public Builder headerProbeRows(int rows) {
+            E.illegalArgumentIf(rows < 1, "header probe rows must be positive");
+            this.headerProbeRows = rows;
+            return this;
+        }
+
+        /**
+         * Set the min score a row must reach to be accepted as the caption row when
+         * probing for it.
+         *
+         * The score of a row is the number of cells matching a mapped property divided
+         * by the number of mapped properties. Probing stops at the first row that reaches
+         * the min score. By default any row with a matching cell is accepted.
+         *
+         * @param score the min score, between `0` and `1`
+         * @return this builder
+         */
+        public Builder headerMinScore(double score) {
+            E.illegalArgumentIf(score < 0 || score > 1, "header min score must be between 0 and 1");
+            this.headerMinScore = score;
+            return this;
+        }
+
+        /**
+         * Skip the first `rows` data rows returned by a read.
+         *
+         * Data rows are counted across the sheets read, excluding caption rows,
+         * rows filtered out by `where` conditions and empty rows ignored. Skipped
+         * rows are not bound into entities, a terminator in skipped rows stops
+         * reading of the sheet.
+         *
+         * @param rows the number of data rows to skip
+         * @return this builder
+         */
+        public Builder skipRows(int rows) {
+            E.illegalArgumentIf(rows < 0, "skip rows must not be negative");
+            this.skipRows = rows;
+            return this;
+        }
+
+        /**
+         * Return at most `rows` data rows after the {@link #skipRows(int) skipped rows}
+         * in a read. Rows are counted across the sheets read, and reading stops
+         * once the limit is reached.
+         *
+         * @param rows the max number of data rows to return
+         * @return this builder
+         */
+        public Builder limit(int rows) {
+            E.illegalArgumentIf(rows < 0, "limit must not be negative");
+            this.limit = rows;
+            return this;
+        }
+
+        /**
+         * Read only rows whose cell value in column `header` passes the `condition`.
+         *
+         * The column is found by the caption, the mapped name or the transformed name
+         * of the caption. The condition is tested with the raw cell value before the
+         * entity is created, or with `null` if the column is not found in the sheet.
+         *
+         * Multiple conditions can be added, a row is read only if it passes all of them.
+         * Conditions are tested in the order they are added.
+         *
+         * @param header the column header
+         * @param condition the condition on the cell value
+         * @return this builder
+         */
+        public Builder where(String header, $.Function<Object, Boolean> condition) {
+            E.illegalArgumentIf(S.blank(header), "header cannot be blank");
+            filterHeaders.add(header.trim());
+            filterConditions.add($.requireNotNull(condition));
+            return this;
+        }
+
         public Builder ignoreEmptyRows() {
             ignoreEmptyRows = true;
             return this;
@@ -1013,6 +2731,88 @@ public class ExcelReader {
             return this;
         }
 
+        /**
+         * Read the source by streaming the sheet data instead of loading
+         * the whole workbook into memory.
+         *
+         * `.xlsx` sheets are parsed as XML stream while `.xls` sheets are
+         * parsed as BIFF record stream.
+         *
+         * Streaming mode requires the sheet selector be created by {@link SheetSelector}.
+         *
+         * @return this builder
+         */
+        public Builder streaming() {
+            streaming = true;
+            return this;
+        }
+
+        public Builder streaming(boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
+
+        /**
+         * Set the number of threads used to bind sheets concurrently in
+         * {@link ExcelReader#readSheets()} and {@link ExcelReader#readSheets(Class)}.
+         *
+         * Each sheet is read by its own streaming scanner, also when the reader is
+         * not in {@link #streaming() streaming mode}, thus the workbook object model
+         * is not loaded. The scanners of an `.xlsx` package share the package and
+         * its shared strings. Content not read from a local file is loaded into
+         * memory. Sheets selected by a custom selector instead of {@link SheetSelector}
+         * are read sequentially.
+         *
+         * @param parallelism the number of threads
+         * @return this builder
+         */
+        public Builder parallelism(int parallelism) {
+            E.illegalArgumentIf(parallelism < 1, "parallelism must be positive");
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Set the executor used to bind sheets concurrently in
+         * {@link ExcelReader#readSheets()} and {@link ExcelReader#readSheets(Class)}.
+         *
+         * Each sheet is read by its own streaming scanner, also when the reader is
+         * not in {@link #streaming() streaming mode}, thus the workbook object model
+         * is not loaded. The scanners of an `.xlsx` package share the package and
+         * its shared strings. Content not read from a local file is loaded into
+         * memory. Sheets selected by a custom selector instead of {@link SheetSelector}
+         * are read sequentially.
+         *
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = $.requireNotNull(executor);
+            return this;
+        }
+
+        /**
+         * Bind rows of a sheet in parallel with fork/join. The data rows of
+         * a sheet are read in row order by the reading thread, which hands over
+         * each chunk of `chunkSize` rows to be bound concurrently. The rows
+         * bound are merged in row order. No rows are bound after the terminator.
+         *
+         * If the {@link #executor(Executor) executor} is a {@link ForkJoinPool}
+         * it is used to bind the chunks, otherwise a shared pool is used.
+         *
+         * Rows are bound into different entities, but the POJO schema type shall
+         * be safe to instantiate and populate by multiple threads concurrently,
+         * e.g. it shall not update static state in setters.
+         *
+         * @param chunkSize the number of rows in a chunk
+         * @return this builder
+         */
+        public Builder parallelRows(int chunkSize) {
+            E.illegalArgumentIf(chunkSize < 1, "chunk size must be positive");
+            this.rowChunkSize = chunkSize;
+            return this;
+        }
+
         public HeaderMapper map(String header) {
             return new HeaderMapper(header);
         }
@@ -1038,12 +2838,172 @@ public class ExcelReader {
             return this;
         }
 
+        /**
+         * Report the errors tolerated to `errorSink` instead of logging each
+         * of them. Errors are always thrown out in strict mode.
+         *
+         * @param errorSink
+         *         the error sink, e.g. a {@link ReadReport}
+         * @return this builder
+         * @see ReadReport
+         */
+        public Builder errorSink(ErrorSink errorSink) {
+            this.errorSink = errorSink;
+            return this;
+        }
+
+        /**
+         * Notify the events of reads to `listener`, e.g. to collect the
+         * metrics of reads with a {@link ReadMetrics}. Reads are not
+         * instrumented when no listener is set.
+         *
+         * @param listener
+         *         the read listener
+         * @return this builder
+         * @see ReadMetrics
+         */
+        public Builder listener(ReadListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Serve the results of `read`, `readSheets`, `readSheet` and `readFirstVisibleTab`
+         * calls out of a cache keyed by the Excel content and the reader configuration.
+         *
+         * The content is identified by its SHA-256 digest, which is remembered for a local
+         * file until its length or last modified time changes. Content not read from a local
+         * file is loaded into memory to calculate the digest. Only reads into {@link Map maps}
+         * without errors reported are cached, each read gets its own copy of the rows. Reads
+         * with `where` conditions or a custom sheet selector or header transformer are not
+         * cached, as functions cannot be compared by value.
+         *
+         * @param cache
+         *         the read cache, `null` to turn off caching
+         * @return this builder
+         */
+        public Builder cache(ReadCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Read a batch of Excel files with the same layout.
+         *
+         * @see #readAll(Collection, Class, int, long)
+         */
+        public <T> BatchResult<T> readAll(Collection<File> files, Class<T> schema, int parallelism) {
+            return readAll(files, schema, parallelism, Long.MAX_VALUE);
+        }
+
+        /**
+         * Read a batch of Excel files with the same layout. Each file is read by
+         * a reader built with a copy of the configuration of this builder, this
+         * builder is not changed.
+         *
+         * At most `parallelism` files are read at the same time, by threads of a
+         * pool shared by all readers. A file is not started until the total size
+         * of the files being read is within `memoryBudget`, except that a file
+         * larger than the budget is read when no other file is being read. Note
+         * the budget is checked against the sizes of the files on disk, an `.xlsx`
+         * file is compressed and takes several times its size in memory when read,
+         * thus the budget bounds the files admitted rather than the memory used.
+         *
+         * The schema mapping of a POJO type is resolved once and shared by all
+         * files, see {@link SchemaMappingCache}. Rows read into {@link Map maps}
+         * are mapped by the caption row of each file.
+         *
+         * An error reading a file does not stop reading the other files, it is
+         * kept in the result instead.
+         *
+         * @param files
+         *         the files to be read
+         * @param schema
+         *         specify the POJO object type
+         * @param parallelism
+         *         the max number of files read at the same time
+         * @param memoryBudget
+         *         the max total size in bytes on disk of files read at the same time
+         * @return the rows and errors of each file
+         */
+        public <T> BatchResult<T> readAll(Collection<File> files, final Class<T> schema, int parallelism, long memoryBudget) {
+            E.illegalArgumentIf(parallelism < 1, "parallelism shall be positive");
+            E.illegalArgumentIf(memoryBudget < 1, "memoryBudget shall be positive");
+            // admission permits are counted in KB
+            final int budget = (int) Math.min(Integer.MAX_VALUE, Math.max(1, memoryBudget / 1024));
+            final Semaphore admission = new Semaphore(budget);
+            final Semaphore slots = new Semaphore(parallelism);
+            List<File> fileList = new ArrayList<>(files);
+            List<FutureTask<List<T>>> tasks = new ArrayList<>(fileList.size());
+            try {
+                for (File file : fileList) {
+                    final int permits = (int) Math.min(budget, Math.max(1, file.length() / 1024));
+                    slots.acquire();
+                    try {
+                        admission.acquire(permits);
+                    } catch (InterruptedException e) {
+                        slots.release();
+                        throw e;
+                    }
+                    FutureTask<List<T>> task;
+                    try {
+                        final ExcelReader reader = new Builder(this).file(file).build();
+                        task = new FutureTask<>(new Callable<List<T>>() {
+                            @Override
+                            public List<T> call() {
+                                try {
+                                    return reader.read(schema);
+                                } finally {
+                                    admission.release(permits);
+                                    slots.release();
+                                }
+                            }
+                        });
+                    } catch (final RuntimeException e) {
+                        admission.release(permits);
+                        slots.release();
+                        task = new FutureTask<>(new Callable<List<T>>() {
+                            @Override
+                            public List<T> call() {
+                                throw e;
+                            }
+                        });
+                        task.run();
+                    }
+                    tasks.add(task);
+                    if (!task.isDone()) {
+                        ParallelExecutorHolder.EXECUTOR.execute(task);
+                    }
+                }
+                BatchResult<T> result = new BatchResult<>();
+                for (int i = 0, n = tasks.size(); i < n; ++i) {
+                    try {
+                        result.succeeded(fileList.get(i), tasks.get(i).get());
+                    } catch (ExecutionException e) {
+                        result.failed(fileList.get(i), e.getCause());
+                    }
+                }
+                return result;
+            } catch (InterruptedException e) {
+                for (FutureTask<List<T>> task : tasks) {
+                    task.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                throw new ExcelReadException(e, "Interrupted while reading files");
+            }
+        }
+
         /**
          * Return an {@link ExcelReader} instance from this builder
          *
          * @return the `ExcelReader` built from this builder
          */
         public ExcelReader build() {
+            // the content is read more than once to calculate the digest or read sheets in parallel
+            boolean reread = null != cache || parallelism > 1 || null != executor;
+            if (reread && null != inputStreamProvider && !(inputStreamProvider instanceof FileSource) && !(inputStreamProvider instanceof SpooledSource)) {
+                inputStreamProvider = new SpooledSource(inputStreamProvider);
+            }
             return new ExcelReader(this);
         }
     }
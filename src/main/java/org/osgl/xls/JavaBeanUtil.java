@@ -80,7 +80,7 @@ class JavaBeanUtil {
                     continue;
                 }
                 String propertyName = S.lowerFirst(property);
-                map.put(propertyName, $.propertyHandlerFactory.createPropertySetter(schema, propertyName));
+                map.put(propertyName, setter(schema, propertyName, null));
             }
         }
     }
@@ -93,8 +93,62 @@ class JavaBeanUtil {
                 continue;
             }
             String propertyName = field.getName();
-            map.put(propertyName, $.propertyHandlerFactory.createPropertySetter(schema, propertyName));
+            map.put(propertyName, setter(schema, propertyName, field));
         }
     }
 
+    /*
+     * Compile the setter method or field the reflective setter would resolve,
+     * and keep the reflective setter as the fallback
+     */
+    private static PropertySetter setter(Class<?> schema, String propertyName, Field field) {
+        PropertySetter setter = $.propertyHandlerFactory.createPropertySetter(schema, propertyName);
+        if (!(setter instanceof ReflectionPropertySetter)) {
+            return setter;
+        }
+        String setterName = "set" + S.capFirst(propertyName);
+        List<Method> candidates = new ArrayList<>();
+        for (Method method : schema.getMethods()) {
+            if (setterName.equals(method.getName()) && method.getParameterTypes().length == 1) {
+                candidates.add(method);
+            }
+        }
+        if (candidates.size() == 1) {
+            return CompiledPropertySetter.of(candidates.get(0), setter);
+        } else if (candidates.size() > 1) {
+            // overloaded setters are returned in no particular order, take the one
+            // matching the property type, or leave it to the reflective setter
+            Method method = overloadOfPropertyType(schema, propertyName, field, candidates);
+            return null == method ? setter : CompiledPropertySetter.of(method, setter);
+        }
+        return null == field ? setter : CompiledPropertySetter.of(field, setter);
+    }
+
+    /*
+     * Returns the setter taking the type of the field or the getter of the
+     * property, or `null` if the property type is unknown or no setter matches
+     */
+    private static Method overloadOfPropertyType(Class<?> schema, String propertyName, Field field, List<Method> candidates) {
+        Class<?> propertyType = null == field ? null : field.getType();
+        if (null == propertyType) {
+            String suffix = S.capFirst(propertyName);
+            for (Method method : schema.getMethods()) {
+                String name = method.getName();
+                if (method.getParameterTypes().length == 0 && (name.equals("get" + suffix) || name.equals("is" + suffix))) {
+                    propertyType = method.getReturnType();
+                    break;
+                }
+            }
+        }
+        if (null == propertyType) {
+            return null;
+        }
+        for (Method method : candidates) {
+            if (propertyType == method.getParameterTypes()[0]) {
+                return method;
+            }
+        }
+        return null;
+    }
+
 }
@@ -0,0 +1,108 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.apache.poi.util.LocaleUtil;
+import org.osgl.util.PropertySetter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.time.*;
+import java.util.Date;
+
+/**
+ * Set date cell values into `java.time` properties.
+ *
+ * Date cells are read as {@link Date} in the POI user time zone, which is
+ * converted to `LocalDate`, `LocalDateTime`, `LocalTime`, `Instant`,
+ * `ZonedDateTime` or `OffsetDateTime` in the same zone.
+ *
+ * This class is loaded only when a property of `java.time` type is found,
+ * thus it does not break the library on runtimes without `java.time`.
+ */
+final class JavaTimeSetter extends CompiledPropertySetter {
+
+    private enum Target {
+        LOCAL_DATE, LOCAL_DATE_TIME, LOCAL_TIME, INSTANT, ZONED_DATE_TIME, OFFSET_DATE_TIME
+    }
+
+    private final Class<?> type;
+    private final Target target;
+
+    private JavaTimeSetter(MethodHandle handle, Class<?> type, Target target, PropertySetter fallback) {
+        super(handle, fallback);
+        this.type = type;
+        this.target = target;
+    }
+
+    @Override
+    protected boolean setDirectly(Object entity, Object value) throws Throwable {
+        if (value instanceof Date) {
+            value = convert((Date) value);
+        } else if (!type.isInstance(value)) {
+            return false;
+        }
+        handle.invokeExact(entity, value);
+        return true;
+    }
+
+    private Object convert(Date date) {
+        ZonedDateTime dateTime = Instant.ofEpochMilli(date.getTime()).atZone(LocaleUtil.getUserTimeZone().toZoneId());
+        switch (target) {
+            case LOCAL_DATE:
+                return dateTime.toLocalDate();
+            case LOCAL_DATE_TIME:
+                return dateTime.toLocalDateTime();
+            case LOCAL_TIME:
+                return dateTime.toLocalTime();
+            case INSTANT:
+                return dateTime.toInstant();
+            case ZONED_DATE_TIME:
+                return dateTime;
+            default:
+                return dateTime.toOffsetDateTime();
+        }
+    }
+
+    /**
+     * Returns a setter of `java.time` property or `null` if the type is not supported.
+     */
+    static PropertySetter of(MethodHandle handle, Class<?> type, PropertySetter fallback) {
+        Target target;
+        if (LocalDate.class == type) {
+            target = Target.LOCAL_DATE;
+        } else if (LocalDateTime.class == type) {
+            target = Target.LOCAL_DATE_TIME;
+        } else if (LocalTime.class == type) {
+            target = Target.LOCAL_TIME;
+        } else if (Instant.class == type) {
+            target = Target.INSTANT;
+        } else if (ZonedDateTime.class == type) {
+            target = Target.ZONED_DATE_TIME;
+        } else if (OffsetDateTime.class == type) {
+            target = Target.OFFSET_DATE_TIME;
+        } else {
+            return null;
+        }
+        return new JavaTimeSetter(handle.asType(MethodType.methodType(void.class, Object.class, Object.class)), type, target, fallback);
+    }
+}
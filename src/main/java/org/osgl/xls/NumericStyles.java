@@ -0,0 +1,112 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.util.Arrays;
+
+/**
+ * Cache the classification of the number format of cell styles of a
+ * workbook, keyed by style index.
+ *
+ * A numeric cell is read as a date if its number format is a date format,
+ * as a decimal if its number format contains `.`, or as an integer
+ * otherwise. Parsing number formats for every cell is costly, while a
+ * workbook only has a few hundred styles, thus each style is classified
+ * once and the classification is reused by all cells of the style.
+ */
+final class NumericStyles {
+
+    /**
+     * The number format is a date format.
+     */
+    static final int DATE = 1;
+
+    /**
+     * The number format has decimal places.
+     */
+    static final int DECIMAL = 2;
+
+    private static final int RESOLVED = 4;
+
+    private byte[] classes = new byte[64];
+
+    /**
+     * Returns the cached classification of a style, or `0` if the
+     * style is not classified yet.
+     *
+     * @param styleIndex the style index
+     * @return the classification flags or `0`
+     */
+    int get(int styleIndex) {
+        return styleIndex < classes.length ? classes[styleIndex] : 0;
+    }
+
+    /**
+     * Classify the number format of a style and cache the classification.
+     *
+     * @param styleIndex the style index
+     * @param formatIndex the number format index of the style
+     * @param format the number format string of the style, might be `null`
+     * @return the classification flags
+     */
+    int put(int styleIndex, int formatIndex, String format) {
+        int flags = RESOLVED;
+        if (null != format) {
+            if (DateUtil.isADateFormat(formatIndex, format)) {
+                flags |= DATE;
+            }
+            if (format.indexOf('.') >= 0) {
+                flags |= DECIMAL;
+            }
+        }
+        if (styleIndex >= classes.length) {
+            classes = Arrays.copyOf(classes, Math.max(styleIndex + 1, classes.length * 2));
+        }
+        classes[styleIndex] = (byte) flags;
+        return flags;
+    }
+
+    /**
+     * Check if a numeric cell value shall be read as a date.
+     *
+     * @param flags the classification flags of the cell style
+     * @param n the numeric cell value
+     * @return `true` if the cell is a date cell
+     */
+    static boolean isDate(int flags, double n) {
+        return (flags & DATE) != 0 && DateUtil.isValidExcelDate(n);
+    }
+
+    /**
+     * Read a numeric cell value that is not a date as `long` or `double`
+     * according to the classification flags of the cell style.
+     *
+     * @param flags the classification flags of the cell style
+     * @param n the numeric cell value
+     * @return the number
+     */
+    static Object number(int flags, double n) {
+        return (flags & DECIMAL) != 0 ? (Object) n : (Object) (long) n;
+    }
+}
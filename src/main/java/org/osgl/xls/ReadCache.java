@@ -0,0 +1,350 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import org.osgl.util.E;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.osgl.xls.ExcelReader.LOGGER;
+
+/**
+ * A cache of read results shared by {@link ExcelReader readers}.
+ *
+ * Results are keyed by the SHA-256 digest of the Excel content together with the
+ * reader configuration, thus reading the same content with the same configuration
+ * again returns the cached result without parsing the workbook, even if the content
+ * comes from another file. The digest of a local file is remembered against its
+ * path, length and last modified time, so that the file is not read again to
+ * identify it until it is changed.
+ *
+ * The memory tier keeps at most `maxEntries` results and evicts the least recently
+ * used one when it is full. An optional disk tier keeps the serialized results in
+ * a directory, which survives eviction and process restarts, and removes the least
+ * recently used files when they exceed the size of the tier. Results that are not
+ * {@link Serializable} are kept in memory only.
+ *
+ * Only rows read into {@link Map maps} are cached, and only if no error is reported
+ * while reading them. Every read hitting the cache gets its own copy of the rows,
+ * thus callers are free to modify them. A read hitting the cache does not open the
+ * workbook, thus {@link ReadListener listeners} are only notified of the rows
+ * returned.
+ *
+ * @see ExcelReader.Builder#cache(ReadCache)
+ */
+public class ReadCache {
+
+    private static final String SUFFIX = ".result";
+
+    /**
+     * The default size of the disk tier: 256MB.
+     */
+    public static final long DEFAULT_DISK_TIER_SIZE = 256L * 1024 * 1024;
+
+    private final int maxEntries;
+    private final Map<String, Object> entries;
+    private final Map<String, String> fileDigests;
+    private File dir;
+    private long maxDiskBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Construct a read cache.
+     *
+     * @param maxEntries the max number of results kept in memory
+     */
+    public ReadCache(final int maxEntries) {
+        E.illegalArgumentIf(maxEntries < 1, "maxEntries shall be positive");
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.fileDigests = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Keep serialized results in `dir` as well, up to
+     * {@link #DEFAULT_DISK_TIER_SIZE}.
+     *
+     * @param dir the directory of the disk tier
+     * @return this cache
+     * @see #diskTier(File, long)
+     */
+    public ReadCache diskTier(File dir) {
+        return diskTier(dir, DEFAULT_DISK_TIER_SIZE);
+    }
+
+    /**
+     * Keep serialized results in `dir` as well. When the result files in
+     * the directory exceed `maxBytes`, the least recently used ones are
+     * removed.
+     *
+     * @param dir the directory of the disk tier
+     * @param maxBytes the max total size of the result files
+     * @return this cache
+     */
+    public ReadCache diskTier(File dir, long maxBytes) {
+        E.illegalArgumentIf(dir.exists() && !dir.isDirectory(), "not a directory: %s", dir);
+        E.illegalArgumentIf(maxBytes < 1, "maxBytes shall be positive");
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw E.ioException("Cannot create cache directory: %s", dir);
+        }
+        this.dir = dir;
+        this.maxDiskBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * @return the max number of results kept in memory
+     */
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return the number of results kept in memory
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove all results from the memory tier and the disk tier.
+     */
+    public void clear() {
+        synchronized (this) {
+            entries.clear();
+            fileDigests.clear();
+        }
+        if (null != dir) {
+            File[] files = dir.listFiles();
+            if (null != files) {
+                for (File file : files) {
+                    if (file.getName().endsWith(SUFFIX)) {
+                        IO.delete(file);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of reads served from this cache.
+     *
+     * @return the hit count
+     */
+    public long hitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of reads not found in this cache.
+     *
+     * @return the miss count
+     */
+    public long missCount() {
+        return misses.get();
+    }
+
+    Object get(String key) {
+        Object value;
+        synchronized (this) {
+            value = entries.get(key);
+        }
+        if (null == value && null != dir) {
+            value = load(key);
+            if (null != value) {
+                synchronized (this) {
+                    entries.put(key, value);
+                }
+            }
+        }
+        (null == value ? misses : hits).incrementAndGet();
+        return value;
+    }
+
+    void put(String key, Object value) {
+        synchronized (this) {
+            entries.put(key, value);
+        }
+        if (null != dir) {
+            store(key, value);
+        }
+    }
+
+    private Object load(String key) {
+        File file = new File(dir, key + SUFFIX);
+        if (!file.exists()) {
+            return null;
+        }
+        try (ObjectInputStream is = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            Object value = is.readObject();
+            // keep recently used files when trimming the disk tier
+            file.setLastModified(System.currentTimeMillis());
+            return value;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // e.g. the schema class has been changed since the result was stored
+            LOGGER.debug(e, "error loading cached result: %s", file);
+            IO.delete(file);
+            return null;
+        }
+    }
+
+    private void store(String key, Object value) {
+        File file = new File(dir, key + SUFFIX);
+        File tmp = new File(dir, key + ".tmp");
+        try (ObjectOutputStream os = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            os.writeObject(value);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug(e, "error storing cached result: %s", file);
+            IO.delete(tmp);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            IO.delete(tmp);
+            return;
+        }
+        trimDiskTier();
+    }
+
+    /*
+     * Remove the least recently used result files until the disk tier
+     * fits into its size
+     */
+    private synchronized void trimDiskTier() {
+        File[] files = dir.listFiles();
+        if (null == files) {
+            return;
+        }
+        List<File> results = new ArrayList<>();
+        long total = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(SUFFIX)) {
+                results.add(file);
+                total += file.length();
+            }
+        }
+        if (total <= maxDiskBytes) {
+            return;
+        }
+        final Map<File, Long> lastModified = new HashMap<>();
+        for (File file : results) {
+            lastModified.put(file, file.lastModified());
+        }
+        Collections.sort(results, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return lastModified.get(o1).compareTo(lastModified.get(o2));
+            }
+        });
+        for (File file : results) {
+            if (total <= maxDiskBytes) {
+                break;
+            }
+            total -= file.length();
+            IO.delete(file);
+        }
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 digest of the content of a file. The
+     * digest is remembered against the path, length and last modified time
+     * of the file.
+     */
+    String digest(File file) {
+        String stamp = S.concat(file.getAbsolutePath(), "|", String.valueOf(file.length()), "|", String.valueOf(file.lastModified()));
+        String digest;
+        synchronized (this) {
+            digest = fileDigests.get(stamp);
+        }
+        if (null == digest) {
+            try {
+                digest = digest(new FileInputStream(file));
+            } catch (FileNotFoundException e) {
+                throw E.ioException(e);
+            }
+            synchronized (this) {
+                fileDigests.put(stamp, digest);
+            }
+        }
+        return digest;
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 digest of the content of a stream.
+     * The stream is closed after reading.
+     */
+    static String digest(InputStream is) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = is.read(buf)) > 0) {
+                digest.update(buf, 0, n);
+            }
+            return hex(digest.digest());
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw E.unexpected(e);
+        } finally {
+            IO.close(is);
+        }
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 digest of a string.
+     */
+    static String digest(String s) {
+        try {
+            return hex(MessageDigest.getInstance("SHA-256").digest(s.getBytes("UTF-8")));
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            throw E.unexpected(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(digits[(b >> 4) & 0xF]).append(digits[b & 0xF]);
+        }
+        return sb.toString();
+    }
+}
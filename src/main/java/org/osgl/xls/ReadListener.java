@@ -0,0 +1,96 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Receives the events of reads for instrumentation. All methods do nothing
+ * by default, subclasses override the events they are interested in.
+ *
+ * Events are fired in the reading threads, thus a listener shared by
+ * concurrent reads shall be thread safe. Listeners shall return quickly
+ * as they are called in the middle of reading.
+ *
+ * @see ReadMetrics
+ * @see ExcelReader.Builder#listener(ReadListener)
+ */
+public abstract class ReadListener {
+
+    /**
+     * Called when the workbook is opened, before any sheet is read. It is
+     * called once per read, also when sheets are read in parallel.
+     *
+     * @param bytes
+     *         the size of the Excel content in bytes, `-1` if not known
+     * @param nanos
+     *         the time taken to open or load the workbook in nanoseconds
+     */
+    public void onWorkbookOpened(long bytes, long nanos) {
+    }
+
+    /**
+     * Called when the caption row of a sheet is resolved.
+     *
+     * @param sheetName
+     *         the sheet name
+     * @param headerRow
+     *         the `0` based index of the caption row
+     * @param nanos
+     *         the time taken to resolve the caption row in nanoseconds
+     */
+    public void onHeaderResolved(String sheetName, int headerRow, long nanos) {
+    }
+
+    /**
+     * Called when the rows of a sheet have been read.
+     *
+     * @param sheetName
+     *         the sheet name
+     * @param rows
+     *         the number of rows read
+     * @param cells
+     *         the number of cell values read into rows
+     * @param emptyRows
+     *         the number of rows skipped as empty rows
+     */
+    public void onSheetRead(String sheetName, int rows, long cells, int emptyRows) {
+    }
+
+    /**
+     * Called when an error occurred, whether it is tolerated or not.
+     *
+     * @param kind
+     *         the error kind
+     * @param sheetName
+     *         the sheet where the error occurred
+     */
+    public void onError(ErrorSink.Kind kind, String sheetName) {
+    }
+
+    /**
+     * Called when a read returns rows collected in memory.
+     *
+     * @param rows
+     *         the number of rows returned
+     */
+    public void onRowsBuffered(int rows) {
+    }
+
+}
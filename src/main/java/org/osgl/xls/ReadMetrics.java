@@ -0,0 +1,211 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.*;
+
+/**
+ * A {@link ReadListener} that aggregates the metrics of reads:
+ *
+ * * bytes read and time taken to open workbooks
+ * * time taken to resolve caption rows
+ * * rows, cells and empty rows read per sheet
+ * * errors by kind
+ * * the peak number of rows returned in memory by a read
+ *
+ * A `ReadMetrics` can be shared by multiple reads, including concurrent ones.
+ */
+public class ReadMetrics extends ReadListener {
+
+    /**
+     * Metrics of the sheets with the same name.
+     */
+    public static class SheetMetrics {
+        private long rows;
+        private long cells;
+        private long emptyRows;
+
+        private SheetMetrics() {
+        }
+
+        private SheetMetrics(SheetMetrics other) {
+            rows = other.rows;
+            cells = other.cells;
+            emptyRows = other.emptyRows;
+        }
+
+        /**
+         * @return the number of rows read
+         */
+        public long rows() {
+            return rows;
+        }
+
+        /**
+         * @return the number of cell values read into rows
+         */
+        public long cells() {
+            return cells;
+        }
+
+        /**
+         * @return the number of rows skipped as empty rows
+         */
+        public long emptyRows() {
+            return emptyRows;
+        }
+
+        @Override
+        public String toString() {
+            return "rows=" + rows + ", cells=" + cells + ", emptyRows=" + emptyRows;
+        }
+    }
+
+    private long workbooks;
+    private long bytesIn;
+    private long openNanos;
+    private long headerNanos;
+    private final Map<String, SheetMetrics> sheets = new LinkedHashMap<>();
+    private final long[] errors = new long[ErrorSink.Kind.values().length];
+    private int peakRowsBuffered;
+
+    @Override
+    public synchronized void onWorkbookOpened(long bytes, long nanos) {
+        workbooks++;
+        if (bytes > 0) {
+            bytesIn += bytes;
+        }
+        openNanos += nanos;
+    }
+
+    @Override
+    public synchronized void onHeaderResolved(String sheetName, int headerRow, long nanos) {
+        headerNanos += nanos;
+    }
+
+    @Override
+    public synchronized void onSheetRead(String sheetName, int rows, long cells, int emptyRows) {
+        SheetMetrics metrics = sheets.get(sheetName);
+        if (null == metrics) {
+            metrics = new SheetMetrics();
+            sheets.put(sheetName, metrics);
+        }
+        metrics.rows += rows;
+        metrics.cells += cells;
+        metrics.emptyRows += emptyRows;
+    }
+
+    @Override
+    public synchronized void onError(ErrorSink.Kind kind, String sheetName) {
+        errors[kind.ordinal()]++;
+    }
+
+    @Override
+    public synchronized void onRowsBuffered(int rows) {
+        peakRowsBuffered = Math.max(peakRowsBuffered, rows);
+    }
+
+    /**
+     * @return the number of workbooks opened
+     */
+    public synchronized long workbooks() {
+        return workbooks;
+    }
+
+    /**
+     * @return the total size in bytes of the workbooks opened, where the size is known
+     */
+    public synchronized long bytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * @return the total time in nanoseconds taken to open workbooks
+     */
+    public synchronized long openNanos() {
+        return openNanos;
+    }
+
+    /**
+     * @return the total time in nanoseconds taken to resolve caption rows
+     */
+    public synchronized long headerNanos() {
+        return headerNanos;
+    }
+
+    /**
+     * @return snapshots of the metrics keyed by sheet name, which are not
+     *         changed by reads afterwards
+     */
+    public synchronized Map<String, SheetMetrics> sheets() {
+        Map<String, SheetMetrics> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, SheetMetrics> entry : sheets.entrySet()) {
+            snapshot.put(entry.getKey(), new SheetMetrics(entry.getValue()));
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the total number of rows read
+     */
+    public synchronized long rows() {
+        long rows = 0;
+        for (SheetMetrics metrics : sheets.values()) {
+            rows += metrics.rows;
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the number of errors of a kind.
+     *
+     * @param kind the error kind
+     * @return the error count
+     */
+    public synchronized long errors(ErrorSink.Kind kind) {
+        return errors[kind.ordinal()];
+    }
+
+    /**
+     * @return the max number of rows returned in memory by a read
+     */
+    public synchronized int peakRowsBuffered() {
+        return peakRowsBuffered;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder()
+                .append("workbooks=").append(workbooks)
+                .append(", bytesIn=").append(bytesIn)
+                .append(", openMs=").append(openNanos / 1000000)
+                .append(", headerMs=").append(headerNanos / 1000000)
+                .append(", peakRowsBuffered=").append(peakRowsBuffered)
+                .append(", sheets=").append(sheets);
+        for (ErrorSink.Kind kind : ErrorSink.Kind.values()) {
+            long count = errors[kind.ordinal()];
+            if (count > 0) {
+                sb.append(", ").append(kind).append('=').append(count);
+            }
+        }
+        return sb.toString();
+    }
+}
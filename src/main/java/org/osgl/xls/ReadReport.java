@@ -0,0 +1,277 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import org.apache.poi.ss.util.CellAddress;
+import org.osgl.util.E;
+import org.osgl.util.S;
+
+import java.util.*;
+
+import static org.osgl.xls.ExcelReader.LOGGER;
+
+/**
+ * An {@link ErrorSink} that collects errors of reads:
+ *
+ * * errors are counted by {@link ErrorSink.Kind kind}
+ * * the first errors are kept as {@link ReadError} records, messages are
+ *   formatted only when asked
+ * * the first error of each kind is logged as a sample without stack
+ *   trace, the others are only counted. Stack traces of the samples are
+ *   logged at debug level
+ * * the error counts are logged in one line when a read with errors ends
+ * * reading is aborted with {@link ExcelReadException} once the number
+ *   of errors exceeds the max error budget
+ *
+ * A report can be shared by multiple reads, in which case the errors
+ * and the budget are accumulated.
+ */
+public class ReadReport implements ErrorSink {
+
+    /**
+     * The default number of error records kept.
+     */
+    public static final int DEFAULT_MAX_RECORDS = 100;
+
+    /**
+     * A tolerated error.
+     */
+    public static class ReadError {
+        private final Kind kind;
+        private final String sheetName;
+        private final int rowIndex;
+        private final int columnIndex;
+        private final Object detail;
+        private final Throwable cause;
+
+        ReadError(Kind kind, String sheetName, int rowIndex, int columnIndex, Object detail, Throwable cause) {
+            this.kind = kind;
+            this.sheetName = sheetName;
+            this.rowIndex = rowIndex;
+            this.columnIndex = columnIndex;
+            this.detail = detail;
+            this.cause = cause;
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        public String sheetName() {
+            return sheetName;
+        }
+
+        /**
+         * @return the `0` based row index or `-1` if not applied
+         */
+        public int rowIndex() {
+            return rowIndex;
+        }
+
+        /**
+         * @return the `0` based column index or `-1` if not applied
+         */
+        public int columnIndex() {
+            return columnIndex;
+        }
+
+        /**
+         * @return the error detail
+         * @see ErrorSink#onError(Kind, String, int, int, Object, Throwable)
+         */
+        public Object detail() {
+            return detail;
+        }
+
+        /**
+         * @return the exception caused the error or `null` if not applied
+         */
+        public Throwable cause() {
+            return cause;
+        }
+
+        /**
+         * @return the error message
+         */
+        public String message() {
+            String location = rowIndex < 0 ? S.fmt("[%s]", sheetName)
+                    : columnIndex < 0 ? S.fmt("row %s@[%s]", rowIndex + 1, sheetName)
+                    : S.fmt("%s@[%s]", new CellAddress(rowIndex, columnIndex), sheetName);
+            switch (kind) {
+                case READ_CELL:
+                    return S.fmt("Error reading cell value: %s", location);
+                case ERROR_CELL:
+                    return S.fmt("Error cell value encountered: %s", location);
+                case UNKNOWN_CELL_TYPE:
+                    return S.fmt("Unknown cell type encountered: %s", location);
+                case SET_PROPERTY:
+                    return S.fmt("failed to set cell value[%s] to POJO: %s", detail, location);
+                case COLUMN_NOT_MAPPED:
+                    return S.fmt("column index not fully built on sheet: %s", location);
+                case CAPTION_ROW_NOT_FOUND:
+                    return S.fmt("caption row not found in sheet%s: %s", location, detail);
+                case CAPTION_ROW_OUT_OF_SCOPE:
+                    return S.fmt("caption row out of scope in sheet: %s", location);
+                default:
+                    throw E.unexpected("unknown error kind: %s", kind);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return message();
+        }
+    }
+
+    private final long maxErrors;
+    private final int maxRecords;
+    private final long[] counts = new long[Kind.values().length];
+    private long total;
+    // the total when the summary is logged
+    private long summarized;
+    private final List<ReadError> records = new ArrayList<>();
+
+    /**
+     * Construct a report without error budget.
+     */
+    public ReadReport() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * Construct a report with error budget.
+     *
+     * @param maxErrors
+     *         the max number of errors tolerated
+     */
+    public ReadReport(long maxErrors) {
+        this(maxErrors, DEFAULT_MAX_RECORDS);
+    }
+
+    /**
+     * Construct a report with error budget.
+     *
+     * @param maxErrors
+     *         the max number of errors tolerated
+     * @param maxRecords
+     *         the max number of error records kept
+     */
+    public ReadReport(long maxErrors, int maxRecords) {
+        E.illegalArgumentIf(maxErrors < 0, "maxErrors shall not be negative");
+        E.illegalArgumentIf(maxRecords < 0, "maxRecords shall not be negative");
+        this.maxErrors = maxErrors;
+        this.maxRecords = maxRecords;
+    }
+
+    @Override
+    public synchronized void onError(Kind kind, String sheetName, int rowIndex, int columnIndex, Object detail, Throwable cause) {
+        total++;
+        if (0 == counts[kind.ordinal()]++) {
+            ReadError sample = new ReadError(kind, sheetName, rowIndex, columnIndex, detail, cause);
+            if (null == cause) {
+                LOGGER.warn("%s (further %s errors are counted only)", sample.message(), kind);
+            } else {
+                LOGGER.warn("%s: %s (further %s errors are counted only)", sample.message(), cause, kind);
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug(cause, "%s", sample.message());
+                }
+            }
+            if (records.size() < maxRecords) {
+                records.add(sample);
+            }
+        } else if (records.size() < maxRecords) {
+            records.add(new ReadError(kind, sheetName, rowIndex, columnIndex, detail, cause));
+        }
+        if (total > maxErrors) {
+            throw new ExcelReadException("Too many errors, %s", summary());
+        }
+    }
+
+    /**
+     * Log the summary of errors when a read ends, if there are errors
+     * reported since the summary is logged last time.
+     */
+    void readEnded() {
+        String summary;
+        synchronized (this) {
+            if (total == summarized) {
+                return;
+            }
+            summarized = total;
+            summary = summary();
+        }
+        LOGGER.warn("Errors tolerated in reading, %s", summary);
+    }
+
+    /**
+     * @return the total number of errors
+     */
+    public synchronized long errorCount() {
+        return total;
+    }
+
+    /**
+     * Returns the number of errors of a kind.
+     *
+     * @param kind the error kind
+     * @return the error count
+     */
+    public synchronized long errorCount(Kind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * @return `true` if there is any error
+     */
+    public synchronized boolean hasErrors() {
+        return total > 0;
+    }
+
+    /**
+     * @return the first errors, in the order they occurred
+     */
+    public synchronized List<ReadError> errors() {
+        return new ArrayList<>(records);
+    }
+
+    /**
+     * @return the error counts by kind, e.g. `2 errors: READ_CELL=1, SET_PROPERTY=1`
+     */
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder().append(total).append(1 == total ? " error" : " errors");
+        String sep = ": ";
+        for (Kind kind : Kind.values()) {
+            long count = counts[kind.ordinal()];
+            if (count > 0) {
+                sb.append(sep).append(kind).append('=').append(count);
+                sep = ", ";
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
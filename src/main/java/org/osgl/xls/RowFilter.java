@@ -0,0 +1,84 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.osgl.$;
+
+import java.util.BitSet;
+
+/**
+ * Filter rows by raw cell values before entities are created.
+ *
+ * A row passes the filter if all conditions pass. Conditions are evaluated
+ * in the order they are added, and evaluation stops at the first failing
+ * condition, thus cells of the other columns are not read for rows
+ * rejected by the first condition.
+ */
+final class RowFilter {
+
+    private final int[] columns;
+    private final $.Function<Object, Boolean>[] conditions;
+
+    /**
+     * Construct a row filter.
+     *
+     * @param columns the column index of each condition, `-1` if the column is not found in the sheet
+     * @param conditions the conditions
+     */
+    RowFilter(int[] columns, $.Function<Object, Boolean>[] conditions) {
+        this.columns = columns;
+        this.conditions = conditions;
+    }
+
+    /**
+     * Add the columns tested by this filter to `columns`.
+     *
+     * @param columns the column set
+     */
+    void addColumnsTo(BitSet columns) {
+        for (int column : this.columns) {
+            if (column >= 0) {
+                columns.set(column);
+            }
+        }
+    }
+
+    /**
+     * Check if the current row of the scanner passes the filter.
+     *
+     * Conditions of columns not found in the sheet are tested with `null`.
+     *
+     * @param scanner the sheet scanner
+     * @return `true` if the row passes the filter
+     */
+    boolean test(SheetScanner scanner) {
+        for (int i = 0; i < columns.length; ++i) {
+            int column = columns[i];
+            Object value = column < 0 ? null : scanner.cellValue(column);
+            Boolean pass = conditions[i].apply(value);
+            if (null == pass || !pass) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * Receives the rows read by {@link ExcelReader} one by one.
+ *
+ * @param <T> the row data type
+ * @see ExcelReader#read(Class, RowHandler)
+ */
+public interface RowHandler<T> {
+
+    /**
+     * Handle a row read from the excel source
+     *
+     * @param row
+     *         the row data
+     * @param sheetName
+     *         the name of the sheet the row belongs to
+     * @param rowIndex
+     *         the `0` based index of the row in the sheet
+     * @return `true` to continue reading or `false` to stop reading
+     */
+    boolean handle(T row, String sheetName, int rowIndex);
+
+}
@@ -0,0 +1,223 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import org.osgl.util.IO;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the rows read by {@link ExcelReader} to subscribers with
+ * backpressure: rows are parsed only as far ahead as the subscriber
+ * has requested.
+ *
+ * The interfaces follow the shape of `java.util.concurrent.Flow` and
+ * Reactive Streams, thus it is straightforward to adapt a `RowPublisher`
+ * to either of them.
+ *
+ * Each subscription reads the Excel source from the beginning. Rows are
+ * delivered in the thread calling {@link Subscription#request(long)}, or
+ * in the executor if it is specified when creating the publisher.
+ *
+ * @param <T> the row data type
+ * @see ExcelReader#publisher(Class)
+ */
+public class RowPublisher<T> {
+
+    /**
+     * Receives rows from a {@link RowPublisher}.
+     *
+     * @param <T> the row data type
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Called once before any other method. No rows will be delivered
+         * until {@link Subscription#request(long)} is called.
+         *
+         * @param subscription the subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Receives the next row.
+         *
+         * @param row the row data
+         */
+        void onNext(T row);
+
+        /**
+         * Called when reading failed, no method will be called after it.
+         *
+         * @param error the error
+         */
+        void onError(Throwable error);
+
+        /**
+         * Called when all rows are delivered, no method will be called after it.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Links a {@link Subscriber} to a {@link RowPublisher}.
+     */
+    public interface Subscription {
+
+        /**
+         * Request `n` more rows.
+         *
+         * @param n the number of rows, shall be positive
+         */
+        void request(long n);
+
+        /**
+         * Stop reading and close the Excel source. Rows may still be
+         * delivered until the cancellation takes effect.
+         */
+        void cancel();
+    }
+
+    private final ExcelReader reader;
+    private final Class<? extends T> schema;
+    private final Executor executor;
+
+    RowPublisher(ExcelReader reader, Class<? extends T> schema, Executor executor) {
+        this.reader = reader;
+        this.schema = schema;
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribe to the rows.
+     *
+     * @param subscriber the subscriber
+     */
+    public void subscribe(Subscriber<? super T> subscriber) {
+        RowSubscription<T> subscription = new RowSubscription<>(this, subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private static class RowSubscription<T> implements Subscription, Runnable {
+
+        private final RowPublisher<T> publisher;
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // the number of drain requests, only one thread drains at a time
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean done;
+        private ExcelReader.RowIterator<T> rows;
+
+        RowSubscription(RowPublisher<T> publisher, Subscriber<? super T> subscriber) {
+            this.publisher = publisher;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("request shall be positive: " + n);
+            } else {
+                long current, next;
+                do {
+                    current = demand.get();
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!demand.compareAndSet(current, next));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (0 != wip.getAndIncrement()) {
+                // the thread draining will take care of it
+                return;
+            }
+            if (null == publisher.executor) {
+                run();
+            } else {
+                publisher.executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                emit();
+                missed = wip.addAndGet(-missed);
+            } while (0 != missed);
+        }
+
+        private void emit() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (null != invalidRequest) {
+                finish();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+            try {
+                if (null == rows) {
+                    rows = publisher.reader.iterator(publisher.schema);
+                }
+                while (demand.get() > 0 && !cancelled) {
+                    if (!rows.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    T row = rows.next();
+                    demand.decrementAndGet();
+                    subscriber.onNext(row);
+                }
+            } catch (RuntimeException e) {
+                finish();
+                subscriber.onError(e);
+                return;
+            }
+            if (cancelled) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            done = true;
+            IO.close(rows);
+        }
+    }
+}
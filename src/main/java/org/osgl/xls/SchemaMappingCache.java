@@ -0,0 +1,164 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.osgl.$;
+import org.osgl.util.PropertySetter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of the resolved schema mappings of POJO types.
+ *
+ * A schema mapping maps headers and properties of a POJO type to the
+ * property setters. Resolving it involves reflection on the POJO type,
+ * thus it is cached per POJO type, header mapping, header transformer
+ * and tolerant level.
+ *
+ * The cache entries of a POJO type are attached to the class via
+ * {@link ClassValue}, and do not prevent the class from being unloaded.
+ */
+public final class SchemaMappingCache {
+
+    /**
+     * The max number of schema mappings cached for a POJO type.
+     */
+    static final int MAX_ENTRIES_PER_SCHEMA = 32;
+
+    private static volatile ClassValue<ConcurrentMap<Key, Map<String, PropertySetter>>> mappings = newMappings();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private SchemaMappingCache() {}
+
+    /**
+     * Remove cached schema mappings of a POJO type.
+     *
+     * @param schema the POJO type
+     */
+    public static void invalidate(Class<?> schema) {
+        mappings.remove(schema);
+    }
+
+    /**
+     * Remove all cached schema mappings.
+     */
+    public static void invalidateAll() {
+        mappings = newMappings();
+    }
+
+    /**
+     * Returns the number of schema mapping lookups served from the cache.
+     *
+     * @return the hit count
+     */
+    public static long hitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of schema mapping lookups that resolved the
+     * schema mapping.
+     *
+     * @return the miss count
+     */
+    public static long missCount() {
+        return misses.get();
+    }
+
+    /**
+     * Reset the hit and miss counters.
+     */
+    public static void resetStats() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    static Map<String, PropertySetter> get(Class<?> schema, Key key, $.F0<Map<String, PropertySetter>> loader) {
+        ConcurrentMap<Key, Map<String, PropertySetter>> cache = mappings.get(schema);
+        Map<String, PropertySetter> mapping = cache.get(key);
+        if (null != mapping) {
+            hits.incrementAndGet();
+            return mapping;
+        }
+        misses.incrementAndGet();
+        mapping = Collections.unmodifiableMap(loader.apply());
+        if (cache.size() >= MAX_ENTRIES_PER_SCHEMA) {
+            // header mapping or transformer created per reader, no point to keep them all
+            cache.clear();
+        }
+        cache.put(key, mapping);
+        return mapping;
+    }
+
+    private static ClassValue<ConcurrentMap<Key, Map<String, PropertySetter>>> newMappings() {
+        return new ClassValue<ConcurrentMap<Key, Map<String, PropertySetter>>>() {
+            @Override
+            protected ConcurrentMap<Key, Map<String, PropertySetter>> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+    }
+
+    /**
+     * Identify the schema mapping of a POJO type by the settings of
+     * an {@link ExcelReader}.
+     */
+    static final class Key {
+        private final Map<String, String> headerMapping;
+        private final $.Function<String, String> headerTransformer;
+        private final boolean tolerant;
+        private final int hc;
+
+        Key(Map<String, String> headerMapping, $.Function<String, String> headerTransformer, boolean tolerant) {
+            this.headerMapping = new HashMap<>(headerMapping);
+            this.headerTransformer = headerTransformer;
+            this.tolerant = tolerant;
+            this.hc = $.hc(this.headerMapping, headerTransformer, tolerant);
+        }
+
+        @Override
+        public int hashCode() {
+            return hc;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                Key that = (Key) obj;
+                return tolerant == that.tolerant
+                        && headerTransformer == that.headerTransformer
+                        && headerMapping.equals(that.headerMapping);
+            }
+            return false;
+        }
+    }
+}
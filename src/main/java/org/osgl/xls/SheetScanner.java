@@ -0,0 +1,348 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetVisibility;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.osgl.$;
+
+import java.io.Closeable;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A `SheetScanner` walks through the sheets of an Excel source and the rows
+ * of each sheet in a forward only manner.
+ *
+ * It decouples the row binding logic in {@link ExcelReader} from the way
+ * the Excel source is parsed, i.e. loading the whole workbook object model
+ * or streaming the sheet data without building the model.
+ */
+abstract class SheetScanner implements Closeable {
+
+    protected final ExcelReader.TolerantLevel tolerantLevel;
+
+    /**
+     * The columns to be read in the current sheet, `null` for all columns.
+     */
+    protected BitSet projection;
+
+    /**
+     * The sheets to be scanned, `null` for all sheets.
+     */
+    protected SheetSelector.SheetPredicate selector;
+
+    /**
+     * The sink of errors tolerated, `null` if errors are logged by the tolerant level.
+     */
+    protected ErrorSink errorSink;
+
+    /**
+     * The listener of read events, `null` if reads are not instrumented.
+     */
+    protected ReadListener listener;
+
+    /**
+     * The count of errors reported by the reader, `null` if not counted.
+     */
+    protected AtomicLong errorCount;
+
+    SheetScanner(ExcelReader.TolerantLevel tolerantLevel) {
+        this.tolerantLevel = tolerantLevel;
+    }
+
+    /**
+     * Report the errors tolerated to an error sink instead of logging them.
+     * Errors are always thrown out in strict mode.
+     *
+     * @param errorSink the error sink, `null` for logging
+     */
+    void errorSink(ErrorSink errorSink) {
+        this.errorSink = errorSink;
+    }
+
+    /**
+     * Notify read events to a listener.
+     *
+     * @param listener the listener, `null` for no instrumentation
+     */
+    void listener(ReadListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Count the errors tolerated into `errorCount`.
+     *
+     * @param errorCount the error count shared by the scanners of a reader
+     */
+    void errorCount(AtomicLong errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    /**
+     * Report an error tolerated.
+     *
+     * @return `true` if the error is reported to the error sink, or `false`
+     *         if it shall be handled by the tolerant level
+     */
+    private boolean report(ErrorSink.Kind kind, int rowIndex, int columnIndex, Object detail, Throwable cause) {
+        if (null != errorCount) {
+            errorCount.incrementAndGet();
+        }
+        if (null != listener) {
+            listener.onError(kind, sheetName());
+        }
+        if (null == errorSink || tolerantLevel.isStrict()) {
+            return false;
+        }
+        errorSink.onError(kind, sheetName(), rowIndex, columnIndex, detail, cause);
+        return true;
+    }
+
+    void onReadCellException(Exception e, int rowIndex, int columnIndex) {
+        if (!report(ErrorSink.Kind.READ_CELL, rowIndex, columnIndex, null, e)) {
+            tolerantLevel.onReadCellException(e, sheetName(), rowIndex, columnIndex);
+        }
+    }
+
+    Object readErrorCell(int rowIndex, int columnIndex) {
+        return report(ErrorSink.Kind.ERROR_CELL, rowIndex, columnIndex, null, null) ? null : tolerantLevel.readErrorCell(sheetName(), rowIndex, columnIndex);
+    }
+
+    Object readUnknownCellType(int rowIndex, int columnIndex) {
+        return report(ErrorSink.Kind.UNKNOWN_CELL_TYPE, rowIndex, columnIndex, null, null) ? null : tolerantLevel.readUnknownCellType(sheetName(), rowIndex, columnIndex);
+    }
+
+    void errorSettingCellValueToPojo(Exception e, int columnIndex, Object value, Class<?> schema) {
+        errorSettingCellValueToPojo(e, rowNum(), columnIndex, value, schema);
+    }
+
+    /**
+     * Report an error setting the value of a row read before, it can be
+     * called by threads binding rows concurrently.
+     */
+    void errorSettingCellValueToPojo(Exception e, int rowIndex, int columnIndex, Object value, Class<?> schema) {
+        if (!report(ErrorSink.Kind.SET_PROPERTY, rowIndex, columnIndex, value, e)) {
+            tolerantLevel.errorSettingCellValueToPojo(e, sheetName(), rowIndex, columnIndex, value, schema);
+        }
+    }
+
+    void columnIndexMapNotFullyBuilt() {
+        if (!report(ErrorSink.Kind.COLUMN_NOT_MAPPED, -1, -1, null, null)) {
+            tolerantLevel.columnIndexMapNotFullyBuilt(sheetName());
+        }
+    }
+
+    void headerRowOutOfScope(int headerRow) {
+        if (!report(ErrorSink.Kind.CAPTION_ROW_OUT_OF_SCOPE, headerRow, -1, null, null)) {
+            tolerantLevel.headerRowOutOfScope(sheetName());
+        }
+    }
+
+    void headerRowNotFound(String reason) {
+        if (!report(ErrorSink.Kind.CAPTION_ROW_NOT_FOUND, -1, -1, reason, null)) {
+            tolerantLevel.headerRowNotFound(sheetName(), reason);
+        }
+    }
+
+    /**
+     * Limit the sheets to be scanned. Scanners skip the sheets not selected
+     * without reading their data, thus {@link #nextSheet()} moves to the next
+     * selected sheet directly.
+     *
+     * This method shall be called before the first {@link #nextSheet()} call.
+     *
+     * @param selector the sheet selector, `null` for all sheets
+     */
+    void select(SheetSelector.SheetPredicate selector) {
+        this.selector = selector;
+    }
+
+    /**
+     * Check if a sheet is to be scanned.
+     *
+     * @param sheetName the sheet name
+     * @param sheetIndex the `0` based position of the sheet
+     * @return `true` if the sheet is to be scanned
+     */
+    protected boolean isSelected(String sheetName, int sheetIndex) {
+        return null == selector || selector.test(sheetName, sheetIndex);
+    }
+
+    /**
+     * Move to the next sheet
+     *
+     * @return `true` if there is next sheet or `false` otherwise
+     */
+    abstract boolean nextSheet();
+
+    /**
+     * @return the name of the current sheet
+     */
+    abstract String sheetName();
+
+    /**
+     * @return the `0` based position of the current sheet in the workbook
+     */
+    abstract int sheetIndex();
+
+    /**
+     * @return the index of the first visible tab of the workbook
+     */
+    abstract int firstVisibleTab();
+
+    /**
+     * @return the names of all sheets in the workbook in sheet index order
+     */
+    abstract List<String> sheetNames();
+
+    /**
+     * Returns a scanner reading the same workbook independently of this
+     * scanner, sharing the workbook parts loaded by this scanner, e.g. the
+     * shared strings. The returned scanner can be used by another thread,
+     * and shall be closed before this scanner.
+     *
+     * @return the scanner, or `null` if the workbook cannot be shared
+     */
+    SheetScanner share() {
+        return null;
+    }
+
+    /**
+     * @return the visibility of the current sheet
+     */
+    abstract SheetVisibility sheetVisibility();
+
+    /**
+     * Returns the used range of the current sheet as recorded in the sheet
+     * or `null` if not known.
+     *
+     * @return the dimension of the current sheet
+     */
+    CellRangeAddress dimension() {
+        return null;
+    }
+
+    /**
+     * @return the first row number of the current sheet or `-1` if not known
+     */
+    abstract int firstRowNum();
+
+    /**
+     * @return the last row number of the current sheet or `-1` if not known
+     */
+    abstract int lastRowNum();
+
+    /**
+     * Move to the next physical row in the current sheet
+     *
+     * @return `true` if there is next row or `false` otherwise
+     */
+    abstract boolean nextRow();
+
+    /**
+     * @return the `0` based row number of the current row
+     */
+    abstract int rowNum();
+
+    /**
+     * Read the cell value at column `columnIndex` of the current row.
+     *
+     * Errors are reported to the {@link ExcelReader.TolerantLevel tolerant level}
+     * and `null` is returned if the error is tolerated.
+     *
+     * @param columnIndex the `0` based column index
+     * @return the cell value or `null` if the cell is blank or not found
+     */
+    abstract Object cellValue(int columnIndex);
+
+    /**
+     * Limit the cells to be read in the rest of the current sheet to the
+     * given columns. Scanners that parse the sheet do not keep the other cells,
+     * which cannot be read with {@link #cellValue(int)} afterwards.
+     *
+     * The projection is reset when moving to the next sheet.
+     *
+     * @param columns the columns to be read, `null` for all columns
+     */
+    void project(BitSet columns) {
+        this.projection = columns;
+    }
+
+    /**
+     * Check if a column is to be read in the current sheet.
+     *
+     * @param columnIndex the `0` based column index
+     * @return `true` if the column is to be read
+     */
+    protected boolean isProjected(int columnIndex) {
+        return null == projection || projection.get(columnIndex);
+    }
+
+    /**
+     * Read the numeric value of the cell at column `columnIndex` of the current
+     * row without boxing.
+     *
+     * Returns `NaN` if the cell is not a numeric cell or is date formatted. Excel
+     * does not store `NaN` in a cell, thus caller shall fallback to
+     * {@link #cellValue(int)} when `NaN` is returned.
+     *
+     * @param columnIndex the `0` based column index
+     * @return the numeric value or `NaN` if the cell is not a plain number
+     */
+    double readDouble(int columnIndex) {
+        Object value = cellValue(columnIndex);
+        return value instanceof Double ? (Double) value : Double.NaN;
+    }
+
+    /**
+     * Read the values of all cells of the current row that are not blank.
+     *
+     * @return the cell values keyed by column index
+     */
+    abstract Map<Integer, Object> cells();
+
+    /**
+     * Read the string content of the cells of the current row. Cells that
+     * does not contain string value are skipped.
+     *
+     * @return the header cells keyed by column index
+     */
+    abstract Map<Integer, String> headerCells();
+
+    /**
+     * Check if the current sheet is selected by the sheet selector
+     *
+     * @param sheetSelector the sheet selector
+     * @return `true` if the current sheet is selected
+     */
+    boolean isSelected($.Predicate<Sheet> sheetSelector) {
+        if (sheetSelector instanceof SheetSelector.SheetPredicate) {
+            return ((SheetSelector.SheetPredicate) sheetSelector).test(sheetName(), sheetIndex());
+        }
+        throw new ExcelReadException("Custom sheet selector is not supported in streaming mode, please use SheetSelector");
+    }
+
+}
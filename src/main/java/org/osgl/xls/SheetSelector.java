@@ -29,6 +29,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Utility to define sheet select logic
@@ -38,11 +39,16 @@ public class SheetSelector {
     /**
      * Select all sheets
      */
-    public static $.Predicate<Sheet> ALL = new $.Predicate<Sheet>() {
+    public static $.Predicate<Sheet> ALL = new SheetPredicate() {
         @Override
-        public boolean test(Sheet rows) {
+        boolean test(String sheetName, int sheetIndex) {
             return true;
         }
+
+        @Override
+        public String toString() {
+            return "ALL";
+        }
     };
 
     /**
@@ -65,10 +71,15 @@ public class SheetSelector {
             List<String> splited = S.fastSplit(s, ",");
             nameList.addAll(splited);
         }
-        return new $.Predicate<Sheet>() {
+        return new SheetPredicate() {
+            @Override
+            boolean test(String sheetName, int sheetIndex) {
+                return nameList.contains(sheetName.toLowerCase());
+            }
+
             @Override
-            public boolean test(Sheet sheet) {
-                return nameList.contains(sheet.getSheetName().toLowerCase());
+            public String toString() {
+                return "byName" + new TreeSet<>(nameList);
             }
         };
     }
@@ -95,11 +106,15 @@ public class SheetSelector {
     public static $.Predicate<Sheet> byPosition(final int ... indexes) {
         E.illegalArgumentIf(indexes.length == 0, "index list expected");
         Arrays.sort(indexes);
-        return new $.Predicate<Sheet>() {
+        return new SheetPredicate() {
             @Override
-            public boolean test(Sheet sheet) {
-                int myIndex = sheet.getWorkbook().getSheetIndex(sheet);
-                return Arrays.binarySearch(indexes, myIndex) > - 1;
+            boolean test(String sheetName, int sheetIndex) {
+                return Arrays.binarySearch(indexes, sheetIndex) > - 1;
+            }
+
+            @Override
+            public String toString() {
+                return "byPosition" + Arrays.toString(indexes);
             }
         };
     }
@@ -114,4 +129,71 @@ public class SheetSelector {
         return byPosition(indexes).negate();
     }
 
+    /*
+     * Select the sheet with the name specified, case insensitive
+     */
+    static SheetPredicate named(final String name) {
+        return new SheetPredicate() {
+            @Override
+            boolean test(String sheetName, int sheetIndex) {
+                return name.equalsIgnoreCase(sheetName);
+            }
+
+            @Override
+            public String toString() {
+                return "named[" + name.toLowerCase() + "]";
+            }
+        };
+    }
+
+    /*
+     * Select the sheet at the position specified
+     */
+    static SheetPredicate at(final int index) {
+        return new SheetPredicate() {
+            @Override
+            boolean test(String sheetName, int sheetIndex) {
+                return index == sheetIndex;
+            }
+
+            @Override
+            public String toString() {
+                return "at[" + index + "]";
+            }
+        };
+    }
+
+    /**
+     * A sheet predicate that can be evaluated with the sheet name and position only,
+     * thus it works with streaming readers where no {@link Sheet} object is loaded.
+     *
+     * The string representation of a sheet predicate describes the sheets selected,
+     * which identifies the predicate in the keys of {@link ReadCache}.
+     */
+    abstract static class SheetPredicate extends $.Predicate<Sheet> {
+
+        @Override
+        public boolean test(Sheet sheet) {
+            return test(sheet.getSheetName(), sheet.getWorkbook().getSheetIndex(sheet));
+        }
+
+        abstract boolean test(String sheetName, int sheetIndex);
+
+        @Override
+        public SheetPredicate negate() {
+            final SheetPredicate me = this;
+            return new SheetPredicate() {
+                @Override
+                boolean test(String sheetName, int sheetIndex) {
+                    return !me.test(sheetName, sheetIndex);
+                }
+
+                @Override
+                public String toString() {
+                    return "!" + me;
+                }
+            };
+        }
+    }
+
 }
@@ -0,0 +1,188 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import org.apache.poi.ss.usermodel.SheetVisibility;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.*;
+
+/**
+ * Metadata of a workbook collected without reading the sheet data:
+ *
+ * * the sheet names, positions and visibilities
+ * * the used range of each sheet as recorded in the sheet
+ * * the first rows of each sheet
+ *
+ * @see ExcelReader#inspect(int)
+ */
+public class WorkbookInfo {
+
+    private final int firstVisibleTab;
+    private final List<SheetInfo> sheets = new ArrayList<>();
+
+    WorkbookInfo(int firstVisibleTab) {
+        this.firstVisibleTab = firstVisibleTab;
+    }
+
+    /**
+     * @return the `0` based position of the first visible tab
+     */
+    public int firstVisibleTab() {
+        return firstVisibleTab;
+    }
+
+    /**
+     * @return the sheets in workbook order
+     */
+    public List<SheetInfo> sheets() {
+        return Collections.unmodifiableList(sheets);
+    }
+
+    /**
+     * @return names of the sheets in workbook order
+     */
+    public List<String> sheetNames() {
+        List<String> names = new ArrayList<>(sheets.size());
+        for (SheetInfo sheet : sheets) {
+            names.add(sheet.name);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the sheet by name, case insensitive.
+     *
+     * @param name the sheet name
+     * @return the sheet or `null` if not found
+     */
+    public SheetInfo sheet(String name) {
+        for (SheetInfo sheet : sheets) {
+            if (sheet.name.equalsIgnoreCase(name)) {
+                return sheet;
+            }
+        }
+        return null;
+    }
+
+    void add(SheetInfo sheet) {
+        sheets.add(sheet);
+    }
+
+    public static class SheetInfo {
+
+        private final String name;
+        private final int index;
+        private final SheetVisibility visibility;
+        private final CellRangeAddress dimension;
+        private final List<Map<Integer, Object>> rows = new ArrayList<>();
+
+        SheetInfo(String name, int index, SheetVisibility visibility, CellRangeAddress dimension) {
+            this.name = name;
+            this.index = index;
+            this.visibility = visibility;
+            this.dimension = dimension;
+        }
+
+        /**
+         * @return the sheet name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return the `0` based position of the sheet in the workbook
+         */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * @return the sheet visibility
+         */
+        public SheetVisibility visibility() {
+            return visibility;
+        }
+
+        /**
+         * @return `true` if the sheet is hidden or very hidden
+         */
+        public boolean isHidden() {
+            return SheetVisibility.VISIBLE != visibility;
+        }
+
+        /**
+         * Returns the used range recorded in the sheet, e.g. `A1:D100`.
+         *
+         * The range is written by the application that saved the file and
+         * is not verified against the sheet data.
+         *
+         * @return the used range or `null` if not recorded
+         */
+        public CellRangeAddress dimension() {
+            return dimension;
+        }
+
+        /**
+         * Returns the first rows of the sheet. Each row is a map of the
+         * values of the cells that are not blank keyed by `0` based column
+         * index. Rows without values are not included.
+         *
+         * @return the first rows of the sheet
+         */
+        public List<Map<Integer, Object>> rows() {
+            return Collections.unmodifiableList(rows);
+        }
+
+        /**
+         * Returns the string cells of the first row that contains string
+         * values, which is normally the caption row.
+         *
+         * @return the header cells keyed by column index, empty map if not found
+         */
+        public Map<Integer, String> header() {
+            for (Map<Integer, Object> row : rows) {
+                Map<Integer, String> header = new TreeMap<>();
+                for (Map.Entry<Integer, Object> entry : row.entrySet()) {
+                    if (entry.getValue() instanceof String) {
+                        header.put(entry.getKey(), (String) entry.getValue());
+                    }
+                }
+                if (!header.isEmpty()) {
+                    return header;
+                }
+            }
+            return Collections.emptyMap();
+        }
+
+        void addRow(Map<Integer, Object> row) {
+            rows.add(row);
+        }
+
+        @Override
+        public String toString() {
+            return null == dimension ? name : name + "!" + dimension.formatAsString();
+        }
+    }
+}
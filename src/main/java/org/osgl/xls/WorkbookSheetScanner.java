@@ -0,0 +1,258 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.osgl.$;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.osgl.xls.ExcelReader.LOGGER;
+
+/**
+ * A {@link SheetScanner} backed by a loaded {@link Workbook}
+ */
+class WorkbookSheetScanner extends SheetScanner {
+
+    private final Workbook workbook;
+    private final NumericStyles numericStyles = new NumericStyles();
+    private Sheet sheet;
+    private int sheetIndex;
+    private Row row;
+    private int rowNum;
+    private int lastRowNum;
+
+    WorkbookSheetScanner(Workbook workbook, ExcelReader.TolerantLevel tolerantLevel) {
+        super(tolerantLevel);
+        this.workbook = $.requireNotNull(workbook);
+        this.sheetIndex = -1;
+    }
+
+    @Override
+    boolean nextSheet() {
+        do {
+            if (++sheetIndex >= workbook.getNumberOfSheets()) {
+                sheet = null;
+                return false;
+            }
+        } while (!isSelected(workbook.getSheetName(sheetIndex), sheetIndex));
+        sheet = workbook.getSheetAt(sheetIndex);
+        row = null;
+        rowNum = sheet.getFirstRowNum() - 1;
+        lastRowNum = sheet.getLastRowNum();
+        return true;
+    }
+
+    @Override
+    String sheetName() {
+        return sheet.getSheetName();
+    }
+
+    @Override
+    int sheetIndex() {
+        return sheetIndex;
+    }
+
+    @Override
+    int firstVisibleTab() {
+        return workbook.getFirstVisibleTab();
+    }
+
+    @Override
+    List<String> sheetNames() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0, n = workbook.getNumberOfSheets(); i < n; ++i) {
+            names.add(workbook.getSheetName(i));
+        }
+        return names;
+    }
+
+    @Override
+    SheetVisibility sheetVisibility() {
+        return workbook.getSheetVisibility(sheetIndex);
+    }
+
+    @Override
+    CellRangeAddress dimension() {
+        int firstColumn = Integer.MAX_VALUE;
+        int lastColumn = -1;
+        for (Row row : sheet) {
+            if (row.getFirstCellNum() >= 0) {
+                firstColumn = Math.min(firstColumn, row.getFirstCellNum());
+                lastColumn = Math.max(lastColumn, row.getLastCellNum() - 1);
+            }
+        }
+        return lastColumn < 0 ? null : new CellRangeAddress(sheet.getFirstRowNum(), sheet.getLastRowNum(), firstColumn, lastColumn);
+    }
+
+    @Override
+    int firstRowNum() {
+        return sheet.getFirstRowNum();
+    }
+
+    @Override
+    int lastRowNum() {
+        return lastRowNum;
+    }
+
+    @Override
+    boolean nextRow() {
+        while (++rowNum <= lastRowNum) {
+            row = sheet.getRow(rowNum);
+            if (null != row) {
+                return true;
+            }
+        }
+        row = null;
+        return false;
+    }
+
+    @Override
+    int rowNum() {
+        return rowNum;
+    }
+
+    @Override
+    Object cellValue(int columnIndex) {
+        Cell cell;
+        try {
+            cell = row.getCell(columnIndex);
+        } catch (Exception e) {
+            onReadCellException(e, rowNum, columnIndex);
+            return null;
+        }
+        if (null == cell) {
+            return null;
+        }
+        try {
+            CellType type = resolvedType(cell);
+            if (CellType.NUMERIC == type) {
+                double n = cell.getNumericCellValue();
+                int flags = numericStyle(cell);
+                if (NumericStyles.isDate(flags, n)) {
+                    return cell.getDateCellValue();
+                }
+                return NumericStyles.number(flags, n);
+            } else if (CellType.ERROR == type) {
+                return readErrorCell(cell.getRowIndex(), cell.getColumnIndex());
+            } else if (CellType._NONE == type) {
+                return readUnknownCellType(cell.getRowIndex(), cell.getColumnIndex());
+            }
+            return ExcelReader.readCellValue(cell, tolerantLevel);
+        } catch (ExcelReadException e) {
+            // e.g. the error budget of the error sink is exceeded
+            throw e;
+        } catch (Exception e) {
+            onReadCellException(e, cell.getRowIndex(), cell.getColumnIndex());
+            return null;
+        }
+    }
+
+    @Override
+    double readDouble(int columnIndex) {
+        try {
+            Cell cell = row.getCell(columnIndex);
+            if (null == cell) {
+                return Double.NaN;
+            }
+            if (CellType.NUMERIC != resolvedType(cell)) {
+                return Double.NaN;
+            }
+            double n = cell.getNumericCellValue();
+            return NumericStyles.isDate(numericStyle(cell), n) ? Double.NaN : n;
+        } catch (Exception e) {
+            // let cellValue() report the error
+            return Double.NaN;
+        }
+    }
+
+    private static boolean isStringCell(Cell cell) {
+        return CellType.STRING == resolvedType(cell);
+    }
+
+    /*
+     * Returns the type of the cell, or the type of the cached result
+     * if it is a formula cell
+     */
+    private static CellType resolvedType(Cell cell) {
+        CellType type = cell.getCellType();
+        return CellType.FORMULA == type ? cell.getCachedFormulaResultType() : type;
+    }
+
+    private int numericStyle(Cell cell) {
+        CellStyle style = cell.getCellStyle();
+        int styleIndex = style.getIndex() & 0xFFFF;
+        int flags = numericStyles.get(styleIndex);
+        if (0 == flags) {
+            flags = numericStyles.put(styleIndex, style.getDataFormat(), style.getDataFormatString());
+        }
+        return flags;
+    }
+
+    @Override
+    Map<Integer, Object> cells() {
+        Map<Integer, Object> retVal = new TreeMap<>();
+        for (Cell cell : row) {
+            Object value = cellValue(cell.getColumnIndex());
+            if (null != value) {
+                retVal.put(cell.getColumnIndex(), value);
+            }
+        }
+        return retVal;
+    }
+
+    @Override
+    Map<Integer, String> headerCells() {
+        Map<Integer, String> retVal = new TreeMap<>();
+        for (Cell cell : row) {
+            if (!isStringCell(cell)) {
+                continue;
+            }
+            try {
+                String header = cell.getStringCellValue();
+                if (S.blank(header)) {
+                    continue;
+                }
+                retVal.put(cell.getColumnIndex(), header);
+            } catch (Exception e) {
+                LOGGER.debug(e, "error reading cell value:" + cell);
+            }
+        }
+        return retVal;
+    }
+
+    @Override
+    boolean isSelected($.Predicate<Sheet> sheetSelector) {
+        return sheetSelector.test(sheet);
+    }
+
+    @Override
+    public void close() {
+        IO.close(workbook);
+    }
+}
@@ -0,0 +1,561 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.SheetVisibility;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.IOUtils;
+import org.osgl.util.E;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * A {@link SheetScanner} that pulls rows out of the BIFF8 records of an
+ * `.xls` file without building the {@link HSSFWorkbook} object model.
+ *
+ * Records are pulled from a {@link RecordFactoryInputStream}, the same source
+ * {@link org.apache.poi.hssf.eventusermodel.HSSFEventFactory} pushes to its
+ * listeners, and number formats are tracked with {@link FormatTrackingHSSFListener}.
+ * Pulling instead of pushing allows the caller to drive the parsing row by row.
+ */
+class XlsSheetScanner extends SheetScanner {
+
+    // the cached result types of `FormulaRecord` as stored in the BIFF8 record
+    private static final int RESULT_NUMERIC = 0;
+    private static final int RESULT_STRING = 1;
+    private static final int RESULT_BOOLEAN = 4;
+    private static final int RESULT_ERROR = 5;
+
+    private static final HSSFListener NO_OP = new HSSFListener() {
+        @Override
+        public void processRecord(Record record) {
+        }
+    };
+
+    private final POIFSFileSystem fs;
+    private final String documentName;
+    private InputStream documentStream;
+    private RecordFactoryInputStream records;
+    private final FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(NO_OP);
+    private final NumericStyles numericStyles = new NumericStyles();
+    private SSTRecord sst;
+    private boolean date1904;
+    private int firstVisibleTab;
+    private List<BoundSheetRecord> boundSheets = new ArrayList<>();
+    private BoundSheetRecord[] boundSheetsByPosition;
+    private int substreamCount;
+    // encrypted records can only be read in sequence
+    private boolean encrypted;
+
+    // the current sheet
+    private String sheetName;
+    private int sheetIndex = -1;
+    private boolean inSheet;
+    private SheetVisibility sheetVisibility;
+    private CellRangeAddress dimension;
+    private int firstRowNum;
+    private int lastRowNum;
+    private Record lookahead;
+    private Deque<Integer> rowRecords = new ArrayDeque<>();
+
+    // the current row
+    private int rowNum;
+    private int cellCount;
+    private CellValueRecordInterface[] cells = new CellValueRecordInterface[32];
+    private String[] formulaStrings = new String[32];
+    private boolean expectingFormulaString;
+    // a cell of the current row has been read
+    private boolean rowStarted;
+
+    XlsSheetScanner(InputStream is, ExcelReader.TolerantLevel tolerantLevel) {
+        this(open(is), tolerantLevel);
+    }
+
+    XlsSheetScanner(POIFSFileSystem fs, ExcelReader.TolerantLevel tolerantLevel) {
+        super(tolerantLevel);
+        this.fs = fs;
+        try {
+            DirectoryNode root = fs.getRoot();
+            documentName = HSSFWorkbook.getWorkbookDirEntryName(root);
+            documentStream = root.createDocumentInputStream(documentName);
+            records = new RecordFactoryInputStream(documentStream, true);
+            readWorkbookGlobals();
+        } catch (IOException e) {
+            IO.close(fs);
+            throw E.ioException(e);
+        } catch (RuntimeException e) {
+            IO.close(fs);
+            throw e;
+        }
+    }
+
+    @Override
+    boolean nextSheet() {
+        skipSheet();
+        if (null != selector && !encrypted) {
+            int position = nextSelectedPosition();
+            if (position < 0) {
+                return false;
+            }
+            if (position > substreamCount) {
+                seek(position);
+            }
+        }
+        Record record;
+        while (null != (record = records.nextRecord())) {
+            formats.processRecordInternally(record);
+            if (!(record instanceof BOFRecord)) {
+                continue;
+            }
+            BoundSheetRecord boundSheet = substreamCount < boundSheetsByPosition.length ? boundSheetsByPosition[substreamCount] : null;
+            substreamCount++;
+            if (BOFRecord.TYPE_WORKSHEET != ((BOFRecord) record).getType() || null == boundSheet) {
+                skipSubstream();
+                continue;
+            }
+            int index = boundSheets.indexOf(boundSheet);
+            if (!isSelected(boundSheet.getSheetname(), index)) {
+                skipSubstream();
+                continue;
+            }
+            sheetName = boundSheet.getSheetname();
+            sheetIndex = index;
+            sheetVisibility = boundSheet.isVeryHidden() ? SheetVisibility.VERY_HIDDEN : boundSheet.isHidden() ? SheetVisibility.HIDDEN : SheetVisibility.VISIBLE;
+            dimension = null;
+            inSheet = true;
+            projection = null;
+            firstRowNum = -1;
+            lastRowNum = -1;
+            rowNum = -1;
+            cellCount = 0;
+            lookahead = null;
+            rowRecords.clear();
+            readSheetDimension();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    String sheetName() {
+        return sheetName;
+    }
+
+    @Override
+    int sheetIndex() {
+        return sheetIndex;
+    }
+
+    @Override
+    int firstVisibleTab() {
+        return firstVisibleTab;
+    }
+
+    @Override
+    List<String> sheetNames() {
+        List<String> names = new ArrayList<>();
+        for (BoundSheetRecord boundSheet : boundSheets) {
+            names.add(boundSheet.getSheetname());
+        }
+        return names;
+    }
+
+    @Override
+    SheetVisibility sheetVisibility() {
+        return sheetVisibility;
+    }
+
+    @Override
+    CellRangeAddress dimension() {
+        return dimension;
+    }
+
+    @Override
+    int firstRowNum() {
+        return firstRowNum;
+    }
+
+    @Override
+    int lastRowNum() {
+        return lastRowNum;
+    }
+
+    @Override
+    boolean nextRow() {
+        cellCount = 0;
+        rowStarted = false;
+        expectingFormulaString = false;
+        while (inSheet) {
+            Record record = nextSheetRecord();
+            if (null == record || record instanceof EOFRecord) {
+                if (rowStarted) {
+                    lookahead = record;
+                    return true;
+                }
+                if (null != record && !rowRecords.isEmpty()) {
+                    // rows without cell
+                    lookahead = record;
+                    rowNum = rowRecords.poll();
+                    return true;
+                }
+                inSheet = false;
+                return false;
+            }
+            if (record instanceof RowRecord) {
+                rowRecords.add(((RowRecord) record).getRowNumber());
+            } else if (record instanceof CellValueRecordInterface) {
+                CellValueRecordInterface cell = (CellValueRecordInterface) record;
+                int row = cell.getRow();
+                if (rowStarted && row != rowNum) {
+                    lookahead = record;
+                    return true;
+                }
+                if (!rowStarted) {
+                    Integer pending = rowRecords.peek();
+                    while (null != pending && pending <= row) {
+                        rowRecords.poll();
+                        if (pending < row) {
+                            // row without cell
+                            lookahead = record;
+                            rowNum = pending;
+                            return true;
+                        }
+                        pending = rowRecords.peek();
+                    }
+                    rowNum = row;
+                    rowStarted = true;
+                }
+                if (isProjected(cell.getColumn())) {
+                    addCell(cell);
+                } else {
+                    expectingFormulaString = false;
+                }
+            } else if (record instanceof StringRecord && expectingFormulaString) {
+                formulaStrings[cellCount - 1] = ((StringRecord) record).getString();
+                expectingFormulaString = false;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    int rowNum() {
+        return rowNum;
+    }
+
+    @Override
+    Object cellValue(int columnIndex) {
+        int pos = position(columnIndex);
+        if (pos < 0) {
+            return null;
+        }
+        try {
+            return decode(pos);
+        } catch (ExcelReadException e) {
+            // e.g. the error budget of the error sink is exceeded
+            throw e;
+        } catch (Exception e) {
+            onReadCellException(e, rowNum, columnIndex);
+            return null;
+        }
+    }
+
+    @Override
+    double readDouble(int columnIndex) {
+        int pos = position(columnIndex);
+        if (pos < 0) {
+            return Double.NaN;
+        }
+        CellValueRecordInterface cell = cells[pos];
+        double n;
+        if (cell instanceof NumberRecord) {
+            n = ((NumberRecord) cell).getValue();
+        } else if (cell instanceof FormulaRecord && RESULT_NUMERIC == ((FormulaRecord) cell).getCachedResultType()) {
+            n = ((FormulaRecord) cell).getValue();
+        } else {
+            return Double.NaN;
+        }
+        return isDate(n, cell) ? Double.NaN : n;
+    }
+
+    @Override
+    Map<Integer, Object> cells() {
+        Map<Integer, Object> retVal = new TreeMap<>();
+        for (int pos = 0; pos < cellCount; ++pos) {
+            int column = cells[pos].getColumn();
+            Object value = cellValue(column);
+            if (null != value) {
+                retVal.put(column, value);
+            }
+        }
+        return retVal;
+    }
+
+    @Override
+    Map<Integer, String> headerCells() {
+        Map<Integer, String> retVal = new TreeMap<>();
+        for (int pos = 0; pos < cellCount; ++pos) {
+            CellValueRecordInterface cell = cells[pos];
+            if (cell instanceof LabelSSTRecord || cell instanceof LabelRecord || null != formulaStrings[pos]) {
+                String header = (String) decode(pos);
+                if (S.notBlank(header)) {
+                    retVal.put((int) cell.getColumn(), header);
+                }
+            }
+        }
+        return retVal;
+    }
+
+    @Override
+    public void close() {
+        IO.close(documentStream);
+        IO.close(fs);
+    }
+
+    private Object decode(int pos) {
+        CellValueRecordInterface cell = cells[pos];
+        if (cell instanceof NumberRecord) {
+            return numericValue(((NumberRecord) cell).getValue(), cell);
+        } else if (cell instanceof LabelSSTRecord) {
+            return sst.getString(((LabelSSTRecord) cell).getSSTIndex()).getString();
+        } else if (cell instanceof LabelRecord) {
+            return ((LabelRecord) cell).getValue();
+        } else if (cell instanceof BoolErrRecord) {
+            BoolErrRecord boolErr = (BoolErrRecord) cell;
+            if (boolErr.isBoolean()) {
+                return boolErr.getBooleanValue();
+            }
+            return readErrorCell(rowNum, cell.getColumn());
+        } else if (cell instanceof BlankRecord) {
+            return null;
+        } else if (cell instanceof FormulaRecord) {
+            FormulaRecord formula = (FormulaRecord) cell;
+            switch (formula.getCachedResultType()) {
+                case RESULT_NUMERIC:
+                    return numericValue(formula.getValue(), cell);
+                case RESULT_STRING:
+                    String s = formulaStrings[pos];
+                    return null == s ? "" : s;
+                case RESULT_BOOLEAN:
+                    return formula.getCachedBooleanValue();
+                case RESULT_ERROR:
+                    return readErrorCell(rowNum, cell.getColumn());
+                default:
+                    break;
+            }
+        }
+        return readUnknownCellType(rowNum, cell.getColumn());
+    }
+
+    private Object numericValue(double n, CellValueRecordInterface cell) {
+        int flags = numericStyle(cell);
+        if (NumericStyles.isDate(flags, n)) {
+            return DateUtil.getJavaDate(n, date1904);
+        }
+        return NumericStyles.number(flags, n);
+    }
+
+    private boolean isDate(double n, CellValueRecordInterface cell) {
+        return NumericStyles.isDate(numericStyle(cell), n);
+    }
+
+    private int numericStyle(CellValueRecordInterface cell) {
+        int styleIndex = cell.getXFIndex() & 0xFFFF;
+        int flags = numericStyles.get(styleIndex);
+        if (0 == flags) {
+            flags = numericStyles.put(styleIndex, formats.getFormatIndex(cell), formats.getFormatString(cell));
+        }
+        return flags;
+    }
+
+    private int position(int columnIndex) {
+        for (int pos = 0; pos < cellCount; ++pos) {
+            int column = cells[pos].getColumn();
+            if (column == columnIndex) {
+                return pos;
+            } else if (column > columnIndex) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    private void addCell(CellValueRecordInterface cell) {
+        if (cellCount == cells.length) {
+            int len = cellCount * 2;
+            cells = Arrays.copyOf(cells, len);
+            formulaStrings = Arrays.copyOf(formulaStrings, len);
+        }
+        cells[cellCount] = cell;
+        formulaStrings[cellCount] = null;
+        cellCount++;
+        expectingFormulaString = cell instanceof FormulaRecord && ((FormulaRecord) cell).hasCachedResultString();
+    }
+
+    private Record nextSheetRecord() {
+        Record record;
+        if (null != lookahead) {
+            record = lookahead;
+            lookahead = null;
+            return record;
+        }
+        while (null != (record = records.nextRecord())) {
+            formats.processRecordInternally(record);
+            if (record instanceof BOFRecord) {
+                // embedded chart etc.
+                skipSubstream();
+                continue;
+            }
+            return record;
+        }
+        return null;
+    }
+
+    private void readSheetDimension() {
+        Record record;
+        while (null != (record = nextSheetRecord())) {
+            if (record instanceof DimensionsRecord) {
+                DimensionsRecord dimension = (DimensionsRecord) record;
+                firstRowNum = dimension.getFirstRow();
+                lastRowNum = Math.max(firstRowNum, dimension.getLastRow() - 1);
+                if (dimension.getLastRow() > dimension.getFirstRow() && dimension.getLastCol() > dimension.getFirstCol()) {
+                    this.dimension = new CellRangeAddress(firstRowNum, lastRowNum, dimension.getFirstCol(), dimension.getLastCol() - 1);
+                }
+                return;
+            } else if (record instanceof RowRecord || record instanceof CellValueRecordInterface || record instanceof EOFRecord) {
+                lookahead = record;
+                return;
+            }
+        }
+    }
+
+    /*
+     * Returns the position of the next selected sheet in the workbook stream
+     * starting from the current substream, or `-1` if there is no one
+     */
+    private int nextSelectedPosition() {
+        for (int position = substreamCount; position < boundSheetsByPosition.length; ++position) {
+            BoundSheetRecord boundSheet = boundSheetsByPosition[position];
+            if (isSelected(boundSheet.getSheetname(), boundSheets.indexOf(boundSheet))) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Jump to the BOF record of the sheet at `position` in the workbook stream,
+     * so that records of the sheets in between are not parsed at all
+     */
+    private void seek(int position) {
+        InputStream is = null;
+        try {
+            is = fs.getRoot().createDocumentInputStream(documentName);
+            IOUtils.skipFully(is, boundSheetsByPosition[position].getPositionOfBof());
+            records = new RecordFactoryInputStream(is, true);
+        } catch (IOException e) {
+            IO.close(is);
+            throw E.ioException(e);
+        } catch (RuntimeException e) {
+            IO.close(is);
+            throw e;
+        }
+        IO.close(documentStream);
+        documentStream = is;
+        substreamCount = position;
+    }
+
+    /*
+     * Skip the rest of the current sheet
+     */
+    private void skipSheet() {
+        if (!inSheet) {
+            return;
+        }
+        inSheet = false;
+        if (lookahead instanceof EOFRecord) {
+            lookahead = null;
+            return;
+        }
+        lookahead = null;
+        skipSubstream();
+    }
+
+    /*
+     * Skip records until the EOF of the current substream
+     */
+    private void skipSubstream() {
+        int depth = 1;
+        Record record;
+        while (depth > 0 && null != (record = records.nextRecord())) {
+            if (record instanceof BOFRecord) {
+                depth++;
+            } else if (record instanceof EOFRecord) {
+                depth--;
+            }
+        }
+    }
+
+    private void readWorkbookGlobals() {
+        Record record = records.nextRecord();
+        E.unexpectedIf(!(record instanceof BOFRecord), "BOF record expected at the beginning of workbook stream");
+        while (null != (record = records.nextRecord())) {
+            formats.processRecordInternally(record);
+            if (record instanceof EOFRecord) {
+                break;
+            } else if (record instanceof FilePassRecord) {
+                encrypted = true;
+            } else if (record instanceof BoundSheetRecord) {
+                boundSheets.add((BoundSheetRecord) record);
+            } else if (record instanceof SSTRecord) {
+                sst = (SSTRecord) record;
+            } else if (record instanceof DateWindow1904Record) {
+                date1904 = 1 == ((DateWindow1904Record) record).getWindowing();
+            } else if (record instanceof WindowOneRecord) {
+                firstVisibleTab = ((WindowOneRecord) record).getFirstVisibleTab();
+            }
+        }
+        boundSheetsByPosition = BoundSheetRecord.orderByBofPosition(boundSheets);
+    }
+
+    private static POIFSFileSystem open(InputStream is) {
+        try {
+            return new POIFSFileSystem(is);
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } finally {
+            IO.close(is);
+        }
+    }
+}
@@ -0,0 +1,633 @@
+package org.osgl.xls;
+
+/*-
+ * #%L
+ * Java Excel Reader
+ * %%
+ * Copyright (C) 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.SheetVisibility;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.osgl.util.E;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * A {@link SheetScanner} that pulls rows out of the sheet XML parts of
+ * an `.xlsx` package without building the workbook object model.
+ *
+ * The package parts are located with {@link XSSFReader}, the sheet XML
+ * is parsed with a StAX reader so that rows are produced only when the
+ * caller asks for the next one. Memory used by this scanner does not
+ * grow with the number of rows.
+ *
+ * Scanners {@link #share() sharing} a package read the sheet parts on
+ * their own, while the package, the shared strings and the styles are
+ * loaded once and released by the scanner that opened the package.
+ */
+class XlsxSheetScanner extends SheetScanner {
+
+    private static final byte TYPE_NUMERIC = 0;
+    private static final byte TYPE_SHARED_STRING = 1;
+    private static final byte TYPE_INLINE_STRING = 2;
+    private static final byte TYPE_FORMULA_STRING = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+    private static final byte TYPE_ERROR = 5;
+    private static final byte TYPE_UNKNOWN = 6;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLHelper.newXMLInputFactory();
+
+    private final File file;
+    private final boolean temporary;
+    // the package is opened by another scanner
+    private final boolean shared;
+    private final OPCPackage pkg;
+    private final ReadOnlySharedStringsTable sharedStrings;
+    private final StylesTable styles;
+    private final NumericStyles numericStyles = new NumericStyles();
+    private final XSSFReader reader;
+    // names and relationship ids of the sheets in workbook order
+    private final List<String> sheetNames = new ArrayList<>();
+    private final List<String> sheetRelIds = new ArrayList<>();
+    private final List<SheetVisibility> sheetVisibilities = new ArrayList<>();
+    private boolean date1904;
+    private int firstVisibleTab;
+
+    // the current sheet
+    private String sheetName;
+    private int sheetIndex = -1;
+    private InputStream sheetStream;
+    private XMLStreamReader xml;
+    private boolean sheetDataFound;
+    private CellRangeAddress dimension;
+    private int firstRowNum;
+    private int lastRowNum;
+
+    // the current row
+    private int rowNum;
+    private int cellCount;
+    private int[] columns = new int[32];
+    private byte[] types = new byte[32];
+    private int[] styleIndexes = new int[32];
+    private String[] values = new String[32];
+
+    XlsxSheetScanner(InputStream is, ExcelReader.TolerantLevel tolerantLevel) {
+        this(spool(is), true, tolerantLevel);
+    }
+
+    XlsxSheetScanner(File file, boolean temporary, ExcelReader.TolerantLevel tolerantLevel) {
+        super(tolerantLevel);
+        this.file = file;
+        this.temporary = temporary;
+        this.shared = false;
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+            reader = new XSSFReader(pkg);
+            readWorkbookProperties(reader.getWorkbookData());
+            sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            styles = reader.getStylesTable();
+            this.pkg = pkg;
+        } catch (IOException e) {
+            abort(pkg);
+            throw E.ioException(e);
+        } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            abort(pkg);
+            throw new ExcelReadException(e, "Error opening xlsx package");
+        } catch (RuntimeException e) {
+            abort(pkg);
+            throw e;
+        }
+    }
+
+    private XlsxSheetScanner(XlsxSheetScanner owner) {
+        super(owner.tolerantLevel);
+        this.file = owner.file;
+        this.temporary = false;
+        this.shared = true;
+        this.pkg = owner.pkg;
+        this.reader = owner.reader;
+        this.sharedStrings = owner.sharedStrings;
+        this.styles = owner.styles;
+        this.sheetNames.addAll(owner.sheetNames);
+        this.sheetRelIds.addAll(owner.sheetRelIds);
+        this.sheetVisibilities.addAll(owner.sheetVisibilities);
+        this.date1904 = owner.date1904;
+        this.firstVisibleTab = owner.firstVisibleTab;
+    }
+
+    @Override
+    boolean nextSheet() {
+        closeSheet();
+        do {
+            if (++sheetIndex >= sheetNames.size()) {
+                return false;
+            }
+        } while (!isSelected(sheetNames.get(sheetIndex), sheetIndex));
+        sheetName = sheetNames.get(sheetIndex);
+        try {
+            // only the selected sheet part is opened
+            sheetStream = reader.getSheet(sheetRelIds.get(sheetIndex));
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } catch (InvalidFormatException | IllegalArgumentException e) {
+            throw new ExcelReadException(e, "Error opening sheet[%s]", sheetName);
+        }
+        sheetDataFound = false;
+        projection = null;
+        dimension = null;
+        firstRowNum = -1;
+        lastRowNum = -1;
+        rowNum = -1;
+        cellCount = 0;
+        return true;
+    }
+
+    @Override
+    String sheetName() {
+        return sheetName;
+    }
+
+    @Override
+    int sheetIndex() {
+        return sheetIndex;
+    }
+
+    @Override
+    int firstVisibleTab() {
+        return firstVisibleTab;
+    }
+
+    @Override
+    List<String> sheetNames() {
+        return new ArrayList<>(sheetNames);
+    }
+
+    @Override
+    SheetScanner share() {
+        return new XlsxSheetScanner(this);
+    }
+
+    @Override
+    SheetVisibility sheetVisibility() {
+        return sheetVisibilities.get(sheetIndex);
+    }
+
+    @Override
+    CellRangeAddress dimension() {
+        openSheet();
+        return dimension;
+    }
+
+    @Override
+    int firstRowNum() {
+        openSheet();
+        return firstRowNum;
+    }
+
+    @Override
+    int lastRowNum() {
+        openSheet();
+        return lastRowNum;
+    }
+
+    @Override
+    boolean nextRow() {
+        if (!openSheet()) {
+            return false;
+        }
+        try {
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (START_ELEMENT == event && "row".equals(xml.getLocalName())) {
+                    String r = xml.getAttributeValue(null, "r");
+                    rowNum = null == r ? rowNum + 1 : Integer.parseInt(r) - 1;
+                    readCells();
+                    return true;
+                } else if (END_ELEMENT == event && "sheetData".equals(xml.getLocalName())) {
+                    break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new ExcelReadException(e, "Error parsing sheet[%s]", sheetName);
+        }
+        closeSheet();
+        return false;
+    }
+
+    @Override
+    int rowNum() {
+        return rowNum;
+    }
+
+    @Override
+    Object cellValue(int columnIndex) {
+        int pos = Arrays.binarySearch(columns, 0, cellCount, columnIndex);
+        if (pos < 0) {
+            return null;
+        }
+        try {
+            return decode(pos);
+        } catch (ExcelReadException e) {
+            // e.g. the error budget of the error sink is exceeded
+            throw e;
+        } catch (Exception e) {
+            onReadCellException(e, rowNum, columnIndex);
+            return null;
+        }
+    }
+
+    @Override
+    double readDouble(int columnIndex) {
+        int pos = Arrays.binarySearch(columns, 0, cellCount, columnIndex);
+        if (pos < 0 || TYPE_NUMERIC != types[pos] || S.isEmpty(values[pos])) {
+            return Double.NaN;
+        }
+        try {
+            double n = Double.parseDouble(values[pos]);
+            return isDate(n, styleIndexes[pos]) ? Double.NaN : n;
+        } catch (Exception e) {
+            // let cellValue() report the error
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    Map<Integer, Object> cells() {
+        Map<Integer, Object> retVal = new TreeMap<>();
+        for (int pos = 0; pos < cellCount; ++pos) {
+            Object value = cellValue(columns[pos]);
+            if (null != value) {
+                retVal.put(columns[pos], value);
+            }
+        }
+        return retVal;
+    }
+
+    @Override
+    Map<Integer, String> headerCells() {
+        Map<Integer, String> retVal = new TreeMap<>();
+        for (int pos = 0; pos < cellCount; ++pos) {
+            String header;
+            switch (types[pos]) {
+                case TYPE_SHARED_STRING:
+                case TYPE_INLINE_STRING:
+                case TYPE_FORMULA_STRING:
+                    header = (String) decode(pos);
+                    break;
+                default:
+                    continue;
+            }
+            if (S.notBlank(header)) {
+                retVal.put(columns[pos], header);
+            }
+        }
+        return retVal;
+    }
+
+    @Override
+    public void close() {
+        closeSheet();
+        if (shared) {
+            return;
+        }
+        release(pkg);
+        if (temporary) {
+            IO.delete(file);
+        }
+    }
+
+    private Object decode(int pos) {
+        String value = values[pos];
+        switch (types[pos]) {
+            case TYPE_NUMERIC:
+                if (S.isEmpty(value)) {
+                    return null;
+                }
+                return numericValue(Double.parseDouble(value), styleIndexes[pos]);
+            case TYPE_SHARED_STRING:
+                return S.isEmpty(value) ? null : sharedStrings.getItemAt(Integer.parseInt(value)).getString();
+            case TYPE_INLINE_STRING:
+            case TYPE_FORMULA_STRING:
+                return null == value ? "" : value;
+            case TYPE_BOOLEAN:
+                return S.isEmpty(value) ? null : "1".equals(value) || "true".equalsIgnoreCase(value);
+            case TYPE_ERROR:
+                return readErrorCell(rowNum, columns[pos]);
+            default:
+                return readUnknownCellType(rowNum, columns[pos]);
+        }
+    }
+
+    private Object numericValue(double n, int styleIndex) {
+        int flags = numericStyle(styleIndex);
+        if (NumericStyles.isDate(flags, n)) {
+            return DateUtil.getJavaDate(n, date1904);
+        }
+        return NumericStyles.number(flags, n);
+    }
+
+    private boolean isDate(double n, int styleIndex) {
+        return NumericStyles.isDate(numericStyle(styleIndex), n);
+    }
+
+    private int numericStyle(int styleIndex) {
+        int flags = numericStyles.get(styleIndex);
+        if (0 == flags) {
+            if (null == styles) {
+                return numericStyles.put(styleIndex, 0, "General");
+            }
+            // the styles table might be shared by scanners reading in other threads
+            synchronized (styles) {
+                XSSFCellStyle style = styles.getStyleAt(styleIndex);
+                flags = null == style
+                        ? numericStyles.put(styleIndex, 0, "General")
+                        : numericStyles.put(styleIndex, style.getDataFormat(), style.getDataFormatString());
+            }
+        }
+        return flags;
+    }
+
+    private void readCells() throws XMLStreamException {
+        cellCount = 0;
+        int column = -1;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (START_ELEMENT == event) {
+                if ("c".equals(xml.getLocalName())) {
+                    String ref = xml.getAttributeValue(null, "r");
+                    column = null == ref ? column + 1 : columnIndex(ref);
+                    if (!isProjected(column)) {
+                        skipElement();
+                        continue;
+                    }
+                    String s = xml.getAttributeValue(null, "s");
+                    byte type = cellType(xml.getAttributeValue(null, "t"));
+                    readCell(column, type, null == s ? 0 : Integer.parseInt(s));
+                }
+            } else if (END_ELEMENT == event && "row".equals(xml.getLocalName())) {
+                return;
+            }
+        }
+    }
+
+    private void readCell(int column, byte type, int styleIndex) throws XMLStreamException {
+        String value = null;
+        StringBuilder inlineString = null;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (START_ELEMENT == event) {
+                String name = xml.getLocalName();
+                if ("v".equals(name)) {
+                    value = xml.getElementText();
+                } else if ("t".equals(name)) {
+                    if (null == inlineString) {
+                        inlineString = new StringBuilder();
+                    }
+                    inlineString.append(xml.getElementText());
+                } else if ("rPh".equals(name)) {
+                    skipElement();
+                }
+            } else if (END_ELEMENT == event && "c".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+        if (TYPE_INLINE_STRING == type && null != inlineString) {
+            value = inlineString.toString();
+        }
+        addCell(column, type, styleIndex, value);
+    }
+
+    private void addCell(int column, byte type, int styleIndex, String value) {
+        if (cellCount == columns.length) {
+            int len = cellCount * 2;
+            columns = Arrays.copyOf(columns, len);
+            types = Arrays.copyOf(types, len);
+            styleIndexes = Arrays.copyOf(styleIndexes, len);
+            values = Arrays.copyOf(values, len);
+        }
+        columns[cellCount] = column;
+        types[cellCount] = type;
+        styleIndexes[cellCount] = styleIndex;
+        values[cellCount] = value;
+        cellCount++;
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (START_ELEMENT == event) {
+                depth++;
+            } else if (END_ELEMENT == event) {
+                depth--;
+            }
+        }
+    }
+
+    /*
+     * Open the current sheet XML and move the cursor to `sheetData` element.
+     * The sheet dimension is collected on the way.
+     *
+     * Returns `false` if there is no sheet data to read
+     */
+    private boolean openSheet() {
+        if (null != xml) {
+            return true;
+        }
+        if (null == sheetStream || sheetDataFound) {
+            return false;
+        }
+        try {
+            xml = XML_INPUT_FACTORY.createXMLStreamReader(sheetStream);
+            while (xml.hasNext()) {
+                if (START_ELEMENT != xml.next()) {
+                    continue;
+                }
+                String name = xml.getLocalName();
+                if ("dimension".equals(name)) {
+                    String ref = xml.getAttributeValue(null, "ref");
+                    // a single cell dimension is what most writers put for unknown size
+                    if (null != ref) {
+                        dimension = CellRangeAddress.valueOf(ref);
+                        if (ref.indexOf(':') > 0) {
+                            firstRowNum = dimension.getFirstRow();
+                            lastRowNum = dimension.getLastRow();
+                        }
+                    }
+                } else if ("sheetData".equals(name)) {
+                    sheetDataFound = true;
+                    return true;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new ExcelReadException(e, "Error parsing sheet[%s]", sheetName);
+        }
+        closeSheet();
+        return false;
+    }
+
+    private void closeSheet() {
+        if (null != xml) {
+            try {
+                xml.close();
+            } catch (XMLStreamException e) {
+                // ignore
+            }
+            xml = null;
+        }
+        IO.close(sheetStream);
+        sheetStream = null;
+    }
+
+    private void readWorkbookProperties(InputStream is) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (END_ELEMENT == event && "sheets".equals(reader.getLocalName())) {
+                    break;
+                } else if (START_ELEMENT != event) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if ("workbookPr".equals(name)) {
+                    String s = reader.getAttributeValue(null, "date1904");
+                    date1904 = "1".equals(s) || "true".equalsIgnoreCase(s);
+                } else if ("workbookView".equals(name)) {
+                    String s = reader.getAttributeValue(null, "firstSheet");
+                    firstVisibleTab = null == s ? 0 : Integer.parseInt(s);
+                } else if ("sheet".equals(name)) {
+                    sheetNames.add(reader.getAttributeValue(null, "name"));
+                    sheetRelIds.add(relationshipId(reader));
+                    sheetVisibilities.add(sheetVisibility(reader.getAttributeValue(null, "state")));
+                }
+            }
+        } finally {
+            reader.close();
+            IO.close(is);
+        }
+    }
+
+    /*
+     * Returns the `r:id` attribute value of a `sheet` element. The
+     * namespace differs between transitional and strict OOXML, thus
+     * the attribute is looked up by local name
+     */
+    private static String relationshipId(XMLStreamReader reader) {
+        for (int i = 0, n = reader.getAttributeCount(); i < n; ++i) {
+            if ("id".equals(reader.getAttributeLocalName(i)) && S.notBlank(reader.getAttributePrefix(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        throw new ExcelReadException("Relationship id not found for sheet[%s]", reader.getAttributeValue(null, "name"));
+    }
+
+    private static SheetVisibility sheetVisibility(String state) {
+        if ("hidden".equals(state)) {
+            return SheetVisibility.HIDDEN;
+        } else if ("veryHidden".equals(state)) {
+            return SheetVisibility.VERY_HIDDEN;
+        }
+        return SheetVisibility.VISIBLE;
+    }
+
+    private static byte cellType(String t) {
+        if (null == t || "n".equals(t)) {
+            return TYPE_NUMERIC;
+        }
+        switch (t) {
+            case "s":
+                return TYPE_SHARED_STRING;
+            case "inlineStr":
+                return TYPE_INLINE_STRING;
+            case "str":
+                return TYPE_FORMULA_STRING;
+            case "b":
+                return TYPE_BOOLEAN;
+            case "e":
+                return TYPE_ERROR;
+            default:
+                return TYPE_UNKNOWN;
+        }
+    }
+
+    private static int columnIndex(String cellRef) {
+        int column = 0;
+        for (int i = 0, len = cellRef.length(); i < len; ++i) {
+            char c = cellRef.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private void abort(OPCPackage pkg) {
+        release(pkg);
+        if (temporary) {
+            IO.delete(file);
+        }
+    }
+
+    private static void release(OPCPackage pkg) {
+        if (null != pkg) {
+            pkg.revert();
+        }
+    }
+
+    private static File spool(InputStream is) {
+        File file = IO.tmpFile("osgl-excel-", ".xlsx");
+        try {
+            IO.write(is).to(file);
+        } catch (RuntimeException e) {
+            IO.delete(file);
+            throw e;
+        } finally {
+            IO.close(is);
+        }
+        return file;
+    }
+}
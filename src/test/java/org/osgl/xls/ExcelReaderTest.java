@@ -20,15 +20,32 @@ package org.osgl.xls;
  * #L%
  */
 
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.Test;
+import org.osgl.$;
 import org.osgl.util.*;
 import osgl.ut.TestBase;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 public class ExcelReaderTest extends TestBase {
 
@@ -191,6 +208,945 @@ public class ExcelReaderTest extends TestBase {
         eq("2217", addr.getPostCode());
     }
 
+    @Test
+    public void testStreamingReadIntoMap() {
+        List<Map<String, Object>> data = ExcelReader.builder()
+                .streaming()
+                .file(sampleFile())
+                .build()
+                .read();
+        verify(data);
+    }
+
+    @Test
+    public void testStreamingReadSheetsIntoMap() {
+        Map<String, List<Map<String, Object>>> data = ExcelReader.builder()
+                .streaming()
+                .file(sampleFile())
+                .build()
+                .readSheets();
+        verify(data);
+    }
+
+    @Test
+    public void testStreamingReadIntoMapWithKeepCaptionSchemaTransformStategy() {
+        List<Map<String, Object>> data = ExcelReader.builder(HeaderTransformStrategy.AS_CAPTION)
+                .streaming()
+                .inputStream(IO.inputStream(sampleUrl()), true)
+                .build()
+                .read();
+        Map<String, Object> s1 = data.get(0);
+        eq("张", s1.get("姓"));
+        eq(dobOfZhang(), s1.get("出生日期"));
+        Map<String, Object> s2 = data.get(1);
+        eq("John", s2.get("First Name"));
+        eq(dobOfJohn(), s2.get("DOB"));
+    }
+
+    @Test
+    public void testStreamingReadIntoPojoWithSchemaTransform() {
+        ExcelReader reader = ExcelReader.builder()
+                .map("姓").to("lastName")
+                .map("名").to("firstName")
+                .map("ID").to("no")
+                .map("学号").to("no")
+                .map("出生日期").to("dob")
+                .map("年级").to("grade")
+                .map("国家").to("country")
+                .map("邮编").to("postCode")
+                .streaming()
+                .file(sampleFile())
+                .build();
+        List<Student> data = reader.read(Student.class);
+        eq(2, data.size());
+
+        Student s0 = data.get(0);
+        eq("三", s0.getFirstName());
+        eq(Student.Grade.g1, s0.getGrade());
+        eq(Student.Country.CHINA, s0.getCountry());
+        eq(dobOfZhang(), s0.getDob());
+
+        Student s1 = data.get(1);
+        eq("John", s1.getFirstName());
+        eq(Student.Country.AUSTRALIA, s1.getCountry());
+        eq(dobOfJohn(), s1.getDob());
+    }
+
+    private File sampleXlsFile() {
+        return new File(ExcelReaderTest.class.getResource("/students.xls").getFile());
+    }
+
+    @Test
+    public void testReadXlsIntoMap() {
+        List<Map<String, Object>> data = ExcelReader.read(sampleXlsFile());
+        verify(data);
+    }
+
+    @Test
+    public void testStreamingReadXlsIntoMap() {
+        List<Map<String, Object>> data = ExcelReader.builder()
+                .streaming()
+                .file(sampleXlsFile())
+                .build()
+                .read();
+        verify(data);
+        eq(dobOfJohn(), data.get(1).get("dob"));
+    }
+
+    @Test
+    public void testStreamingReadXlsSheetsIntoMap() {
+        Map<String, List<Map<String, Object>>> data = ExcelReader.builder()
+                .streaming()
+                .file(sampleXlsFile())
+                .build()
+                .readSheets();
+        verify(data);
+    }
+
+    @Test
+    public void testStreamingReadXlsIntoPojo() {
+        List<Student> data = ExcelReader.builder()
+                .streaming()
+                .file(sampleXlsFile())
+                .build()
+                .read(Student.class);
+        eq(1, data.size());
+        Student s1 = data.get(0);
+        eq("John", s1.getFirstName());
+        eq(Student.Grade.g1, s1.getGrade());
+        eq(Student.Country.AUSTRALIA, s1.getCountry());
+        eq(dobOfJohn(), s1.getDob());
+    }
+
+    @Test
+    public void testIterator() {
+        ExcelReader.RowIterator<Map<String, Object>> iterator = ExcelReader.builder()
+                .file(sampleFile())
+                .build()
+                .iterator();
+        List<Map<String, Object>> data = new ArrayList<>();
+        while (iterator.hasNext()) {
+            data.add(iterator.next());
+        }
+        verify(data);
+        no(iterator.hasNext());
+    }
+
+    @Test
+    public void testStreamingIteratorIntoPojo() throws Exception {
+        try (ExcelReader.RowIterator<Student> iterator = ExcelReader.builder()
+                .streaming()
+                .file(sampleFile())
+                .build()
+                .iterator(Student.class)) {
+            yes(iterator.hasNext());
+            eq("John", iterator.next().getFirstName());
+            no(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testCloseIteratorBeforeExhausted() {
+        ExcelReader.RowIterator<Map<String, Object>> iterator = ExcelReader.builder()
+                .streaming()
+                .file(sampleXlsFile())
+                .build()
+                .iterator();
+        yes(iterator.hasNext());
+        eq("张", iterator.next().get("姓"));
+        iterator.close();
+        no(iterator.hasNext());
+    }
+
+    @Test
+    public void testReadWithRowHandler() {
+        final List<String> rows = new ArrayList<>();
+        ExcelReader.builder()
+                .streaming()
+                .file(sampleFile())
+                .build()
+                .read(new RowHandler<Map<String, Object>>() {
+                    @Override
+                    public boolean handle(Map<String, Object> row, String sheetName, int rowIndex) {
+                        rows.add(sheetName + ":" + rowIndex);
+                        return true;
+                    }
+                });
+        eq(C.list("中国学生:3", "Australian Students:3"), rows);
+    }
+
+    @Test
+    public void testStopReadingWithRowHandler() {
+        final List<Student> students = new ArrayList<>();
+        ExcelReader.builder()
+                .map("名").to("firstName")
+                .file(sampleFile())
+                .build()
+                .read(Student.class, new RowHandler<Student>() {
+                    @Override
+                    public boolean handle(Student row, String sheetName, int rowIndex) {
+                        students.add(row);
+                        return false;
+                    }
+                });
+        eq(1, students.size());
+        eq("三", students.get(0).getFirstName());
+    }
+
+    @Test
+    public void testReadSheetsInParallel() throws Exception {
+        Map<String, List<Map<String, Object>>> data = ExcelReader.builder()
+                .parallelism(3)
+                .file(sampleFile())
+                .build()
+                .readSheets();
+        verify(data);
+        eq(C.list("Cover Page", "中国学生", "Australian Students"), C.list(data.keySet()));
+        for (boolean xlsx : new boolean[]{true, false}) {
+            File file = multiSheetFile(xlsx, "a", "b", "c", "d");
+            try (InputStream is = new FileInputStream(file)) {
+                // each sheet is read out of the content spooled from the stream
+                data = ExcelReader.builder().parallelism(2).inputStream(is, xlsx).sheets("d", "b", "c").build().readSheets();
+                eq(C.list("b", "c", "d"), C.list(data.keySet()));
+                eq("c", data.get("c").get(0).get("name"));
+                // streaming readers read sheets in parallel as well
+                final List<Runnable> tasks = new ArrayList<>();
+                data = ExcelReader.builder().streaming().executor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        tasks.add(command);
+                        command.run();
+                    }
+                }).file(file).build().readSheets();
+                eq(4, tasks.size());
+                eq(C.list("a", "b", "c", "d"), C.list(data.keySet()));
+                eq("d", data.get("d").get(0).get("name"));
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testReadWithParallelRows() throws Exception {
+        File file = largeSheetFile(1000, 700);
+        try {
+            for (boolean streaming : new boolean[]{false, true}) {
+                ExcelReader.Builder builder = ExcelReader.builder()
+                        .parallelRows(50)
+                        .terminator("END")
+                        .file(file);
+                if (streaming) {
+                    builder.streaming();
+                }
+                List<Map<String, Object>> data = builder.build().read();
+                eq(699, data.size());
+                for (int i = 0; i < data.size(); ++i) {
+                    eq("name" + (i + 1), data.get(i).get("name"));
+                }
+            }
+        } finally {
+            IO.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadIntoPrimitiveProperties() throws Exception {
+        File file = File.createTempFile("osgl-excel-test-", ".xlsx");
+        try {
+            try (XSSFWorkbook wb = new XSSFWorkbook()) {
+                Sheet sheet = wb.createSheet("scores");
+                Row header = sheet.createRow(0);
+                String[] headers = {"id", "passed", "rank", "value", "subject", "date"};
+                for (int i = 0; i < headers.length; ++i) {
+                    header.createCell(i).setCellValue(headers[i]);
+                }
+                Row row = sheet.createRow(1);
+                row.createCell(0).setCellValue(7);
+                row.createCell(1).setCellValue(true);
+                row.createCell(2).setCellValue("3");
+                row.createCell(3).setCellValue(90.5);
+                row.createCell(4).setCellValue("math");
+                CellStyle dateStyle = wb.createCellStyle();
+                dateStyle.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+                Cell dateCell = row.createCell(5);
+                dateCell.setCellValue(dateOf("2020-02-29"));
+                dateCell.setCellStyle(dateStyle);
+                try (FileOutputStream os = new FileOutputStream(file)) {
+                    wb.write(os);
+                }
+            }
+            for (boolean streaming : new boolean[]{false, true}) {
+                List<Score> scores = ExcelReader.builder().streaming(streaming).file(file).build().read(Score.class);
+                eq(1, scores.size());
+                Score score = scores.get(0);
+                eq(7, score.getId());
+                yes(score.isPassed());
+                eq(3L, score.rank);
+                eq(90.5, score.value);
+                eq("math", score.subject);
+                eq(LocalDate.of(2020, 2, 29), score.date);
+            }
+            Map<String, PropertySetter> setters = JavaBeanUtil.setters(Score.class, C.<String, String>Map());
+            yes(setters.get("id") instanceof CompiledPropertySetter);
+            yes(setters.get("value") instanceof CompiledPropertySetter);
+        } finally {
+            IO.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadFractionInIntegerFormattedCell() throws Exception {
+        File file = File.createTempFile("osgl-excel-test-", ".xlsx");
+        try {
+            try (XSSFWorkbook wb = new XSSFWorkbook()) {
+                Sheet sheet = wb.createSheet("scores");
+                Row header = sheet.createRow(0);
+                header.createCell(0).setCellValue("value");
+                header.createCell(1).setCellValue("subject");
+                CellStyle integerStyle = wb.createCellStyle();
+                integerStyle.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat("0"));
+                Row row = sheet.createRow(1);
+                Cell cell = row.createCell(0);
+                cell.setCellValue(3.7);
+                cell.setCellStyle(integerStyle);
+                row.createCell(1).setCellValue("math");
+                try (FileOutputStream os = new FileOutputStream(file)) {
+                    wb.write(os);
+                }
+            }
+            for (boolean parallelRows : new boolean[]{false, true}) {
+                ExcelReader.Builder builder = ExcelReader.builder().file(file);
+                if (parallelRows) {
+                    builder.parallelRows(1);
+                }
+                List<Score> scores = builder.build().read(Score.class);
+                eq(1, scores.size());
+                eq(3.7, scores.get(0).value);
+                eq("math", scores.get(0).subject);
+            }
+        } finally {
+            IO.delete(file);
+        }
+    }
+
+    @Test
+    public void testSchemaMappingCache() {
+        SchemaMappingCache.invalidate(Student.class);
+        long hits = SchemaMappingCache.hitCount();
+        long misses = SchemaMappingCache.missCount();
+        eq(1, ExcelReader.read(sampleFile(), Student.class).size());
+        eq(misses + 1, SchemaMappingCache.missCount());
+        eq(1, ExcelReader.read(sampleFile(), Student.class).size());
+        eq(hits + 1, SchemaMappingCache.hitCount());
+        eq(misses + 1, SchemaMappingCache.missCount());
+        SchemaMappingCache.invalidateAll();
+        eq(1, ExcelReader.read(sampleFile(), Student.class).size());
+        eq(misses + 2, SchemaMappingCache.missCount());
+    }
+
+    @Test
+    public void testHeaderProbing() throws Exception {
+        File file = sheetFile(
+                new Object[]{"Score report"},
+                new Object[]{"id", "note"},
+                new Object[]{"id", "subject", "rank"},
+                new Object[]{1, "math", 2});
+        try {
+            yes(ExcelReader.builder().headerProbeRows(1).file(file).build().read(Score.class).isEmpty());
+            eq(2, ExcelReader.builder().headerProbeRows(2).file(file).build().read(Score.class).size());
+            List<Score> scores = ExcelReader.builder().headerMinScore(0.5).file(file).build().read(Score.class);
+            eq(1, scores.size());
+            eq("math", scores.get(0).subject);
+            eq(2L, scores.get(0).rank);
+            yes(ExcelReader.builder().headerMinScore(1).file(file).build().read(Score.class).isEmpty());
+        } finally {
+            IO.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadColumnar() throws Exception {
+        File file = sheetFile(
+                new Object[]{"id", "name", "score"},
+                new Object[]{1, "Tom", 1.5},
+                new Object[]{2, "Jerry", 2},
+                new Object[]{3, "Tom"},
+                new Object[]{"END"},
+                new Object[]{4, "Spike", 3});
+        try {
+            for (boolean streaming : new boolean[]{false, true}) {
+                ColumnarSheet data = ExcelReader.builder().streaming(streaming).terminator("END").file(file).build().readColumnar();
+                eq(3, data.rowCount());
+                eq(C.list("id", "name", "score"), data.columnNames());
+                ColumnarSheet.Column id = data.column("id");
+                eq(ColumnarSheet.ColumnType.LONG, id.type());
+                yes(Arrays.equals(new long[]{1, 2, 3}, id.longs()));
+                ColumnarSheet.Column name = data.column("name");
+                eq(ColumnarSheet.ColumnType.STRING, name.type());
+                eq(C.list("Tom", "Jerry"), name.dictionary());
+                yes(Arrays.equals(new int[]{0, 1, 0}, name.codes()));
+                ColumnarSheet.Column score = data.column("score");
+                eq(ColumnarSheet.ColumnType.DOUBLE, score.type());
+                eq(1.5, score.getDouble(0));
+                eq(2.0, score.getDouble(1));
+                yes(score.isNull(2));
+                no(score.isNull(1));
+            }
+        } finally {
+            IO.delete(file);
+        }
+        // skipped rows shall not change the column types
+        file = sheetFile(
+                new Object[]{"id", "name"},
+                new Object[]{"n/a", "Tom"},
+                new Object[]{1, "Jerry"},
+                new Object[]{2, "Spike"});
+        try {
+            for (boolean streaming : new boolean[]{false, true}) {
+                ColumnarSheet data = ExcelReader.builder().streaming(streaming).skipRows(1).file(file).build().readColumnar();
+                eq(2, data.rowCount());
+                ColumnarSheet.Column id = data.column("id");
+                eq(ColumnarSheet.ColumnType.LONG, id.type());
+                yes(Arrays.equals(new long[]{1, 2}, id.longs()));
+                eq(C.list("Jerry", "Spike"), data.column("name").dictionary());
+            }
+        } finally {
+            IO.delete(file);
+        }
+    }
+
+    @Test
+    public void testStreamingReadProjectedColumns() throws Exception {
+        for (boolean xlsx : new boolean[]{true, false}) {
+            File file = sheetFile(xlsx,
+                    new Object[]{"id", "note", "name"},
+                    new Object[]{1, "x", "Tom"},
+                    new Object[]{null, "only note"},
+                    new Object[]{2, "y", "Jerry"});
+            try {
+                List<Map<String, Object>> data = ExcelReader.builder()
+                        .streaming()
+                        .readColumns("id", "name")
+                        .readEmptyRows()
+                        .file(file)
+                        .build().read();
+                eq(3, data.size());
+                eq(C.Map("id", 1L, "name", "Tom"), data.get(0));
+                yes(data.get(1).isEmpty());
+                eq(C.Map("id", 2L, "name", "Jerry"), data.get(2));
+            } finally {
+                IO.delete(file);
+            }
+        }
+    }
+
+    private static File sheetFile(Object[]... rows) throws Exception {
+        return sheetFile(true, rows);
+    }
+
+    private static File sheetFile(boolean xlsx, Object[]... rows) throws Exception {
+        File file = File.createTempFile("osgl-excel-test-", xlsx ? ".xlsx" : ".xls");
+        try (Workbook wb = xlsx ? new XSSFWorkbook() : new HSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("data");
+            for (int i = 0; i < rows.length; ++i) {
+                Row row = sheet.createRow(i);
+                for (int j = 0; j < rows[i].length; ++j) {
+                    Object value = rows[i][j];
+                    if (null == value) {
+                        continue;
+                    } else if (value instanceof Number) {
+                        row.createCell(j).setCellValue(((Number) value).doubleValue());
+                    } else {
+                        row.createCell(j).setCellValue(String.valueOf(value));
+                    }
+                }
+            }
+            try (FileOutputStream os = new FileOutputStream(file)) {
+                wb.write(os);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void testReadPage() throws Exception {
+        File file = largeSheetFile(1000, 0);
+        try {
+            for (int mode = 0; mode < 3; ++mode) {
+                ExcelReader.Builder builder = ExcelReader.builder().skipRows(100).limit(10).file(file);
+                if (mode == 1) {
+                    builder.streaming();
+                } else if (mode == 2) {
+                    builder.parallelRows(3);
+                }
+                List<Map<String, Object>> data = builder.build().read();
+                eq(10, data.size());
+                for (int i = 0; i < data.size(); ++i) {
+                    eq("name" + (101 + i), data.get(i).get("name"));
+                }
+            }
+            ColumnarSheet columns = ExcelReader.builder().skipRows(990).limit(100).file(file).build().readColumnar();
+            eq(10, columns.rowCount());
+            eq("name991", columns.column("name").getString(0));
+        } finally {
+            IO.delete(file);
+        }
+        // rows are counted across sheets
+        file = multiSheetFile(true, "a", "b", "c", "d");
+        try {
+            List<Map<String, Object>> data = ExcelReader.builder().skipRows(1).limit(2).file(file).build().read();
+            eq(2, data.size());
+            eq("b", data.get(0).get("name"));
+            eq("c", data.get(1).get("name"));
+        } finally {
+            IO.delete(file);
+        }
+        // empty rows are not counted
+        file = sheetFile(
+                new Object[]{"name"},
+                new Object[]{"x1"},
+                new Object[]{},
+                new Object[]{"x2"},
+                new Object[]{"x3"});
+        try {
+            List<Map<String, Object>> data = ExcelReader.builder().skipRows(1).limit(1).file(file).build().read();
+            eq(1, data.size());
+            eq("x2", data.get(0).get("name"));
+        } finally {
+            IO.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadWhere() throws Exception {
+        File file = largeSheetFile(100, 50);
+        $.Predicate<Object> condition = new $.Predicate<Object>() {
+            @Override
+            public boolean test(Object value) {
+                return "name7".equals(value) || "name77".equals(value);
+            }
+        };
+        try {
+            List<Map<String, Object>> data = ExcelReader.builder().where("Name", condition).file(file).build().read();
+            eq(2, data.size());
+            data = ExcelReader.builder().where("name", condition).terminator("END").file(file).build().read();
+            eq(1, data.size());
+            eq("name7", data.get(0).get("name"));
+            ColumnarSheet columns = ExcelReader.builder().where("name", condition).file(file).build().readColumnar();
+            eq(2, columns.rowCount());
+        } finally {
+            IO.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadSelectedSheets() throws Exception {
+        for (boolean xlsx : new boolean[]{true, false}) {
+            File file = multiSheetFile(xlsx, "a", "b", "Summary", "d");
+            try {
+                for (boolean streaming : new boolean[]{false, true}) {
+                    ExcelReader.Builder builder = ExcelReader.builder().file(file);
+                    if (streaming) {
+                        builder.streaming();
+                    }
+                    ExcelReader reader = builder.build();
+                    eq("Summary", reader.readSheet("summary").get(0).get("name"));
+                    eq("d", reader.readSheet(3).get(0).get("name"));
+                    eq("b", reader.readFirstVisibleTab().get(0).get("name"));
+                    Map<String, List<Map<String, Object>>> sheets = builder.sheets("d", "b").build().readSheets();
+                    eq(C.list("b", "d"), new ArrayList<>(sheets.keySet()));
+                    eq("d", sheets.get("d").get(0).get("name"));
+                }
+                // custom selectors are supported when streaming is off
+                Map<String, List<Map<String, Object>>> custom = ExcelReader.builder().file(file).sheetSelector(new $.Predicate<Sheet>() {
+                    @Override
+                    public boolean test(Sheet sheet) {
+                        return sheet.getSheetName().startsWith("S");
+                    }
+                }).build().readSheets();
+                eq(1, custom.size());
+                eq("Summary", custom.get("Summary").get(0).get("name"));
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testInspect() throws Exception {
+        for (boolean xlsx : new boolean[]{true, false}) {
+            File file = File.createTempFile("osgl-excel-test-", xlsx ? ".xlsx" : ".xls");
+            try {
+                try (Workbook wb = xlsx ? new XSSFWorkbook() : new HSSFWorkbook()) {
+                    Sheet sheet = wb.createSheet("data");
+                    sheet.createRow(1).createCell(1).setCellValue("id");
+                    sheet.getRow(1).createCell(2).setCellValue("name");
+                    for (int i = 2; i < 100; ++i) {
+                        Row row = sheet.createRow(i);
+                        row.createCell(1).setCellValue(i);
+                        row.createCell(2).setCellValue("name" + i);
+                    }
+                    wb.createSheet("hidden").createRow(0).createCell(0).setCellValue(true);
+                    wb.setSheetHidden(1, true);
+                    try (FileOutputStream os = new FileOutputStream(file)) {
+                        wb.write(os);
+                    }
+                }
+                WorkbookInfo info = ExcelReader.builder().file(file).build().inspect(2);
+                eq(C.list("data", "hidden"), info.sheetNames());
+                WorkbookInfo.SheetInfo data = info.sheet("DATA");
+                eq(99, data.dimension().getLastRow());
+                eq(2, data.dimension().getLastColumn());
+                no(data.isHidden());
+                eq(2, data.rows().size());
+                eq("id", data.header().get(1));
+                eq("name", data.header().get(2));
+                eq("name2", data.rows().get(1).get(2));
+                WorkbookInfo.SheetInfo hidden = info.sheets().get(1);
+                yes(hidden.isHidden());
+                eq(true, hidden.rows().get(0).get(0));
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testReadCache() throws Exception {
+        File file = largeSheetFile(10, 0);
+        File copy = File.createTempFile("osgl-excel-test-", ".xlsx");
+        File dir = File.createTempFile("osgl-excel-cache-", "");
+        dir.delete();
+        try {
+            ReadCache cache = new ReadCache(2).diskTier(dir);
+            List<Map<String, Object>> data = ExcelReader.builder().file(file).cache(cache).build().read();
+            eq(10, data.size());
+            eq(0L, cache.hitCount());
+            data.clear();
+            List<Map<String, Object>> cached = ExcelReader.builder().file(file).cache(cache).build().read();
+            eq(1L, cache.hitCount());
+            eq(10, cached.size());
+            eq("name3", cached.get(2).get("name"));
+            // rows changed by the caller are not changed in the cache
+            cached.get(2).put("name", "changed");
+            eq("name3", ExcelReader.builder().file(file).cache(cache).build().read().get(2).get("name"));
+            eq(2L, cache.hitCount());
+            // different configuration
+            eq(5, ExcelReader.builder().file(file).limit(5).cache(cache).build().read().size());
+            eq(2L, cache.hitCount());
+            // served by the disk tier
+            cache = new ReadCache(2).diskTier(dir);
+            cached = ExcelReader.builder().file(file).cache(cache).build().read();
+            eq(1L, cache.hitCount());
+            eq(10, cached.size());
+            // results are keyed by content, not by where it comes from
+            cached = ExcelReader.builder().inputStream(new FileInputStream(file), true).cache(cache).build().read();
+            eq(10, cached.size());
+            eq(2L, cache.hitCount());
+            Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            eq(10, ExcelReader.builder().file(copy).cache(cache).build().read().size());
+            eq(3L, cache.hitCount());
+            // POJO rows are not cached
+            ExcelReader.builder().file(file).cache(cache).build().read(Score.class);
+            eq(3L, cache.hitCount());
+            eq(0L, cache.missCount());
+            cache.clear();
+            eq(0, cache.size());
+            // the disk tier is trimmed to its size
+            new ReadCache(1).diskTier(dir, 1).put("key", "result");
+            eq(0, dir.listFiles().length);
+        } finally {
+            file.delete();
+            copy.delete();
+            IO.delete(dir, true);
+        }
+    }
+
+    @Test
+    public void testReadAsync() throws Exception {
+        File file = largeSheetFile(1000, 0);
+        try {
+            ExcelReader reader = ExcelReader.builder().streaming().file(file).build();
+            eq(1000, reader.readAsync().get().size());
+            // reading stops once the reading thread is interrupted
+            Thread.currentThread().interrupt();
+            try {
+                reader.read();
+                fail("ExcelReadException expected");
+            } catch (ExcelReadException e) {
+                // expected
+            } finally {
+                Thread.interrupted();
+            }
+            // reading stops once the workbook is loaded
+            Thread.currentThread().interrupt();
+            try {
+                ExcelReader.builder().file(file).build().read();
+                fail("ExcelReadException expected");
+            } catch (ExcelReadException e) {
+                eq("Interrupted while opening the workbook", e.getMessage());
+            } finally {
+                Thread.interrupted();
+            }
+            final List<Runnable> tasks = new ArrayList<>();
+            Future<List<Map>> future = reader.readAsync(Map.class, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    tasks.add(command);
+                }
+            });
+            yes(future.cancel(false));
+            tasks.get(0).run();
+            yes(future.isCancelled());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadAll() throws Exception {
+        File file1 = largeSheetFile(10, 0);
+        File file2 = largeSheetFile(20, 0);
+        File broken = File.createTempFile("osgl-excel-test-", ".xlsx");
+        IO.write("not an excel file").to(broken);
+        try {
+            List<File> files = C.list(file1, broken, file2);
+            for (long budget : new long[]{1, Long.MAX_VALUE}) {
+                BatchResult<Map> result = ExcelReader.builder().readAll(files, Map.class, 2, budget);
+                eq(C.list(file1, file2), new ArrayList<>(result.results().keySet()));
+                eq(20, result.results().get(file2).size());
+                eq(30, result.rows().size());
+                yes(result.hasFailures());
+                yes(result.failures().containsKey(broken));
+            }
+            // the builder is not changed by reading the batch
+            ExcelReader.Builder builder = ExcelReader.builder().file(file1);
+            eq(30, builder.readAll(C.list(file1, file2), Map.class, 2).rows().size());
+            eq(10, builder.build().read().size());
+        } finally {
+            file1.delete();
+            file2.delete();
+            broken.delete();
+        }
+    }
+
+    @Test
+    public void testRowPublisher() throws Exception {
+        File file = largeSheetFile(10, 0);
+        try {
+            RowPublisher<Map<String, Object>> publisher = ExcelReader.builder().streaming().file(file).build().publisher();
+            final List<Object> received = new ArrayList<>();
+            final RowPublisher.Subscription[] subscription = new RowPublisher.Subscription[1];
+            RowPublisher.Subscriber<Map<String, Object>> subscriber = new RowPublisher.Subscriber<Map<String, Object>>() {
+                @Override
+                public void onSubscribe(RowPublisher.Subscription s) {
+                    subscription[0] = s;
+                }
+
+                @Override
+                public void onNext(Map<String, Object> row) {
+                    received.add(row.get("name"));
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    received.add(error);
+                }
+
+                @Override
+                public void onComplete() {
+                    received.add("completed");
+                }
+            };
+            publisher.subscribe(subscriber);
+            eq(0, received.size());
+            subscription[0].request(3);
+            eq(C.list("name1", "name2", "name3"), received);
+            subscription[0].request(Long.MAX_VALUE);
+            eq(11, received.size());
+            eq("completed", received.get(10));
+
+            received.clear();
+            publisher.subscribe(subscriber);
+            subscription[0].request(1);
+            subscription[0].cancel();
+            subscription[0].request(1);
+            eq(1, received.size());
+            eq("name1", received.get(0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadReport() throws Exception {
+        File file = sheetFile(
+                new Object[]{"id", "subject"},
+                new Object[]{"x1", "math"},
+                new Object[]{"x2", "art"},
+                new Object[]{3, "bio"});
+        try {
+            ReadReport report = new ReadReport();
+            List<Score> scores = ExcelReader.builder().file(file).errorSink(report).build().read(Score.class);
+            eq(3, scores.size());
+            // date, passed, rank and value are not mapped
+            eq(1L, report.errorCount(ErrorSink.Kind.COLUMN_NOT_MAPPED));
+            eq(2L, report.errorCount(ErrorSink.Kind.SET_PROPERTY));
+            eq(3L, report.errorCount());
+            ReadReport.ReadError error = report.errors().get(2);
+            eq(2, error.rowIndex());
+            eq(0, error.columnIndex());
+            eq("x2", error.detail());
+            eq("3 errors: SET_PROPERTY=2, COLUMN_NOT_MAPPED=1", report.summary());
+            // caption row probed from the first row
+            report = new ReadReport();
+            eq(3, ExcelReader.builder().file(file).headerRow(10).errorSink(report).build().read().size());
+            eq(1L, report.errorCount(ErrorSink.Kind.CAPTION_ROW_OUT_OF_SCOPE));
+            eq(10, report.errors().get(0).rowIndex());
+            try {
+                ExcelReader.builder().file(file).errorSink(new ReadReport(1)).build().read(Score.class);
+                fail("ExcelReadException expected");
+            } catch (ExcelReadException e) {
+                // expected
+            }
+        } finally {
+            file.delete();
+        }
+        // the budget aborts reading error cells without reporting it as another error
+        file = File.createTempFile("osgl-excel-test-", ".xlsx");
+        try {
+            try (XSSFWorkbook wb = new XSSFWorkbook()) {
+                Sheet sheet = wb.createSheet("scores");
+                sheet.createRow(0).createCell(0).setCellValue("subject");
+                for (int i = 1; i <= 3; ++i) {
+                    sheet.createRow(i).createCell(0).setCellErrorValue(FormulaError.DIV0.getCode());
+                }
+                try (FileOutputStream os = new FileOutputStream(file)) {
+                    wb.write(os);
+                }
+            }
+            for (boolean streaming : new boolean[]{false, true}) {
+                ReadReport report = new ReadReport(1);
+                try {
+                    ExcelReader.builder().streaming(streaming).file(file).errorSink(report).build().read();
+                    fail("ExcelReadException expected");
+                } catch (ExcelReadException e) {
+                    eq(2L, report.errorCount(ErrorSink.Kind.ERROR_CELL));
+                    eq(0L, report.errorCount(ErrorSink.Kind.READ_CELL));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadIntoOverloadedSetter() throws Exception {
+        File file = sheetFile(
+                new Object[]{"name", "age"},
+                new Object[]{"Tom", 30});
+        try {
+            List<Member> members = ExcelReader.builder().file(file).build().read(Member.class);
+            eq(1, members.size());
+            eq("Tom", members.get(0).getName());
+            // setAge(int) matches the getter type
+            eq(30, members.get(0).getAge());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadMetrics() throws Exception {
+        File file = sheetFile(
+                new Object[]{"id", "subject"},
+                new Object[]{1, "math"},
+                new Object[]{},
+                new Object[]{2, null});
+        try {
+            ReadMetrics metrics = new ReadMetrics();
+            List<Map<String, Object>> rows = ExcelReader.builder().file(file).listener(metrics).build().read();
+            eq(2, rows.size());
+            eq(1L, metrics.workbooks());
+            eq(file.length(), metrics.bytesIn());
+            yes(metrics.openNanos() > 0);
+            yes(metrics.headerNanos() > 0);
+            ReadMetrics.SheetMetrics sheet = metrics.sheets().get("data");
+            eq(2L, sheet.rows());
+            eq(3L, sheet.cells());
+            eq(1L, sheet.emptyRows());
+            eq(2, metrics.peakRowsBuffered());
+
+            ExcelReader.builder().file(file).listener(metrics).build().read(Score.class);
+            eq(2L, metrics.workbooks());
+            eq(4L, metrics.rows());
+            // date, passed, rank and value are not mapped
+            eq(1L, metrics.errors(ErrorSink.Kind.COLUMN_NOT_MAPPED));
+
+            // stop at the first row
+            ExcelReader.builder().file(file).listener(metrics).build().read(Map.class, new RowHandler<Map>() {
+                @Override
+                public boolean handle(Map row, String sheetName, int rowIndex) {
+                    return false;
+                }
+            });
+            eq(5L, metrics.rows());
+            eq(2, metrics.peakRowsBuffered());
+            // sheet metrics are snapshots
+            eq(2L, sheet.rows());
+        } finally {
+            file.delete();
+        }
+        // a workbook is counted once by a read of sheets in parallel
+        for (boolean xlsx : new boolean[]{true, false}) {
+            file = multiSheetFile(xlsx, "a", "b", "c");
+            try {
+                ReadMetrics metrics = new ReadMetrics();
+                eq(3, ExcelReader.builder().parallelism(3).file(file).listener(metrics).build().readSheets().size());
+                eq(1L, metrics.workbooks());
+                eq(3, metrics.sheets().size());
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    private static File multiSheetFile(boolean xlsx, String... sheetNames) throws Exception {
+        File file = File.createTempFile("osgl-excel-test-", xlsx ? ".xlsx" : ".xls");
+        try (Workbook wb = xlsx ? new XSSFWorkbook() : new HSSFWorkbook()) {
+            for (String sheetName : sheetNames) {
+                Sheet sheet = wb.createSheet(sheetName);
+                sheet.createRow(0).createCell(0).setCellValue("name");
+                sheet.createRow(1).createCell(0).setCellValue(sheetName);
+            }
+            wb.setFirstVisibleTab(1);
+            try (FileOutputStream os = new FileOutputStream(file)) {
+                wb.write(os);
+            }
+        }
+        return file;
+    }
+
+    private static File largeSheetFile(int rows, int terminatorRow) throws Exception {
+        File file = File.createTempFile("osgl-excel-test-", ".xlsx");
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("data");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("id");
+            header.createCell(1).setCellValue("name");
+            for (int i = 1; i <= rows; ++i) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i == terminatorRow ? "END" : String.valueOf(i));
+                row.createCell(1).setCellValue("name" + i);
+            }
+            try (FileOutputStream os = new FileOutputStream(file)) {
+                wb.write(os);
+            }
+        }
+        return file;
+    }
+
     private static DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
     private static Date dobOfZhang() {